@@ -1,33 +1,99 @@
 // Book.java - класс модели книги
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
 public class Book implements Serializable {
     private static final long serialVersionUID = 1L;
+    public static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
 
+    // Постоянный идентификатор; 0 - книга ещё не добавлена в библиотеку
+    private int id;
     private String title;
     private String author;
     private String genre;
-    private LocalDate publicationDate;
-    private String filePath;
-    private int pages;
-    private double rating;
+    // Путь к файлу хранится как каталог (общий экземпляр для книг одной папки) и имя файла
+    private transient String directory;
+    private transient String fileName;
+    // Дата, страницы и рейтинг: у книги библиотеки - её ячейка в столбцах (BookColumns),
+    // у книги вне библиотеки - собственная неизменяемая копия
+    private transient Numbers numbers;
     private String description;
+    // SHA-256 содержимого файла книги (null, если неизвестен)
+    private String contentHash;
+    // Источник описания при отложенной загрузке (см. DescriptionStore)
+    private transient DescriptionStore descriptionStore;
+    private transient int descriptionIndex;
+    // Строки для отображения в таблице, сбрасываются при изменении полей
+    private transient String formattedDate;
+    private transient String formattedRating;
 
     public Book(String title, String author, String genre, LocalDate publicationDate,
                 String filePath, int pages, double rating, String description) {
         this.title = title;
         this.author = author;
         this.genre = genre;
-        this.publicationDate = publicationDate;
-        this.filePath = filePath;
-        this.pages = pages;
-        this.rating = rating;
+        this.numbers = new OwnNumbers(epochDay(publicationDate), pages, rating);
+        setFilePath(filePath);
         this.description = description;
     }
+
+    // Источник числовых полей книги по её идентификатору
+    interface Numbers {
+        int epochDay(int id);
+
+        int pages(int id);
+
+        double rating(int id);
+    }
+
+    private static final class OwnNumbers implements Numbers {
+        private final int epochDay;
+        private final int pages;
+        private final double rating;
+
+        OwnNumbers(int epochDay, int pages, double rating) {
+            this.epochDay = epochDay;
+            this.pages = pages;
+            this.rating = rating;
+        }
+
+        @Override
+        public int epochDay(int id) { return epochDay; }
+
+        @Override
+        public int pages(int id) { return pages; }
+
+        @Override
+        public double rating(int id) { return rating; }
+    }
+
+    // Книга добавлена в библиотеку: поля читаются из столбцов
+    void attach(Numbers columns) {
+        numbers = columns;
+    }
+
+    // Книга удалена из библиотеки: поля копируются из столбцов, отложенное описание читается из файла
+    void detach() {
+        numbers = new OwnNumbers(getEpochDay(), getPages(), getRating());
+        if (description == null && descriptionStore != null) {
+            description = descriptionStore.load(descriptionIndex);
+            descriptionStore = null;
+        }
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date != null ? (int) date.toEpochDay() : BookColumns.NULL_DATE;
+    }
     // Геттеры и сеттеры
+    public int getId() { return id; }
+    void setId(int id) { this.id = id; }
+
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
 
@@ -37,23 +103,145 @@ public class Book implements Serializable {
     public String getGenre() { return genre; }
     public void setGenre(String genre) { this.genre = genre; }
 
-    public LocalDate getPublicationDate() { return publicationDate; }
-    public void setPublicationDate(LocalDate publicationDate) { this.publicationDate = publicationDate; }
+    public LocalDate getPublicationDate() {
+        int epochDay = getEpochDay();
+        return epochDay != BookColumns.NULL_DATE ? LocalDate.ofEpochDay(epochDay) : null;
+    }
+
+    // Изменение отделяет поля от столбцов: данные библиотеки меняет только Library.updateBook
+    public void setPublicationDate(LocalDate publicationDate) {
+        numbers = new OwnNumbers(epochDay(publicationDate), getPages(), getRating());
+        this.formattedDate = null;
+    }
+
+    // Дата в днях от 01.01.1970 или BookColumns.NULL_DATE - без создания LocalDate
+    int getEpochDay() { return numbers.epochDay(id); }
+
+    public String getFilePath() {
+        return directory != null ? directory + fileName : fileName;
+    }
+
+    public void setFilePath(String filePath) {
+        int separator = separatorIndex(filePath);
+        if (separator < 0) {
+            directory = null;
+            fileName = filePath;
+        } else {
+            directory = filePath.substring(0, separator + 1);
+            fileName = filePath.substring(separator + 1);
+        }
+    }
+
+    // Позиция последнего разделителя каталогов в пути или -1
+    static int separatorIndex(String path) {
+        return path != null ? Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) : -1;
+    }
+
+    // Каталог файла вместе с завершающим разделителем (null, если пути нет или он без каталога)
+    String getDirectory() { return directory; }
+
+    String getFileName() { return fileName; }
 
-    public String getFilePath() { return filePath; }
-    public void setFilePath(String filePath) { this.filePath = filePath; }
+    // Замена каталога равной ему общей строкой
+    void shareDirectory(String directory) {
+        if (directory != null && directory.equals(this.directory)) {
+            this.directory = directory;
+        }
+    }
+
+    public int getPages() { return numbers.pages(id); }
+    public void setPages(int pages) { numbers = new OwnNumbers(getEpochDay(), pages, getRating()); }
 
-    public int getPages() { return pages; }
-    public void setPages(int pages) { this.pages = pages; }
+    public double getRating() { return numbers.rating(id); }
+    public void setRating(double rating) {
+        numbers = new OwnNumbers(getEpochDay(), getPages(), rating);
+        this.formattedRating = null;
+    }
 
-    public double getRating() { return rating; }
-    public void setRating(double rating) { this.rating = rating; }
+    public String getContentHash() { return contentHash; }
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
 
-    public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public String getDescription() {
+        if (description == null && descriptionStore != null) {
+            return descriptionStore.load(descriptionIndex);
+        }
+        return description;
+    }
+    public void setDescription(String description) {
+        this.description = description;
+        this.descriptionStore = null;
+    }
+
+    // Описание будет прочитано из файла при первом обращении
+    void setLazyDescription(DescriptionStore store, int index) {
+        this.description = null;
+        this.descriptionStore = store;
+        this.descriptionIndex = index;
+    }
+
+    // Номер описания в хранилище, если описание ещё читается из него; иначе -1
+    int lazyDescriptionIndex(DescriptionStore store) {
+        return description == null && descriptionStore == store ? descriptionIndex : -1;
+    }
 
     public String getFormattedDate() {
-        return publicationDate.format(DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+        if (formattedDate == null) {
+            LocalDate publicationDate = getPublicationDate();
+            formattedDate = publicationDate != null ? publicationDate.format(DATE_FORMAT) : "";
+        }
+        return formattedDate;
+    }
+
+    public String getFormattedRating() {
+        if (formattedRating == null) {
+            formattedRating = String.format("%.1f", getRating());
+        }
+        return formattedRating;
+    }
+
+    /*
+     * Сериализованная форма прежняя - с полным путём в поле filePath, чтобы
+     * файлы библиотеки старого формата по-прежнему читались.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("id", int.class),
+            new ObjectStreamField("title", String.class),
+            new ObjectStreamField("author", String.class),
+            new ObjectStreamField("genre", String.class),
+            new ObjectStreamField("publicationDate", LocalDate.class),
+            new ObjectStreamField("filePath", String.class),
+            new ObjectStreamField("pages", int.class),
+            new ObjectStreamField("rating", double.class),
+            new ObjectStreamField("description", String.class),
+            new ObjectStreamField("contentHash", String.class)
+    };
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("id", id);
+        fields.put("title", title);
+        fields.put("author", author);
+        fields.put("genre", genre);
+        fields.put("publicationDate", getPublicationDate());
+        fields.put("filePath", getFilePath());
+        fields.put("pages", getPages());
+        fields.put("rating", getRating());
+        fields.put("description", description);
+        fields.put("contentHash", contentHash);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        id = fields.get("id", 0);
+        title = (String) fields.get("title", null);
+        author = (String) fields.get("author", null);
+        genre = (String) fields.get("genre", null);
+        setFilePath((String) fields.get("filePath", null));
+        numbers = new OwnNumbers(epochDay((LocalDate) fields.get("publicationDate", null)),
+                fields.get("pages", 0), fields.get("rating", 0.0));
+        description = (String) fields.get("description", null);
+        contentHash = (String) fields.get("contentHash", null);
     }
 
     @Override
@@ -0,0 +1,156 @@
+// BookColumns.java - числовые поля книг, разложенные по массивам примитивов
+
+import java.util.*;
+
+/**
+ * Хранилище "структура массивов": дата, страницы, рейтинг, номер автора и
+ * номер жанра книги лежат в отдельных массивах примитивов под её
+ * идентификатором. Фильтры и сортировки по этим полям проходят по
+ * непрерывным массивам, не обращаясь к объектам Book, а книга библиотеки
+ * сама читает свои числовые поля отсюда и не держит их копию.
+ */
+public class BookColumns implements Book.Numbers {
+    // Дата отсутствует
+    public static final int NULL_DATE = Integer.MIN_VALUE;
+
+    private int size;
+    // Ячейки после наибольшего идентификатора книги свободны
+    private int limit;
+    // Ячейка по идентификатору книги (идентификаторы идут подряд); номер автора -1 - книги нет
+    private int[] epochDays = new int[16];
+    private int[] pages = new int[16];
+    private double[] ratings = new double[16];
+    private int[] authorIds = newAuthorIds(16);
+    private int[] genreIds = new int[16];
+
+    // Словарь авторов: номер автора и число его книг
+    private final Map<String, Integer> authorIdsByName = new HashMap<>();
+    private int[] authorBooks = new int[16];
+    private int authorsWithBooks;
+
+    // Поля книги переносятся в столбцы, и дальше книга читает их отсюда
+    public void add(Book book, int genreId) {
+        int id = book.getId();
+        if (id >= authorIds.length) {
+            int capacity = Math.max(id + 1, authorIds.length * 2);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            pages = Arrays.copyOf(pages, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            int[] grown = newAuthorIds(capacity);
+            System.arraycopy(authorIds, 0, grown, 0, authorIds.length);
+            authorIds = grown;
+            genreIds = Arrays.copyOf(genreIds, capacity);
+        }
+        epochDays[id] = book.getEpochDay();
+        pages[id] = book.getPages();
+        ratings[id] = book.getRating();
+        genreIds[id] = genreId;
+        int authorId = authorId(book.getAuthor());
+        if (authorBooks[authorId]++ == 0) {
+            authorsWithBooks++;
+        }
+        authorIds[id] = authorId;
+        size++;
+        limit = Math.max(limit, id + 1);
+        book.attach(this);
+    }
+
+    /*
+     * Книга получает собственную копию полей: удалённую книгу ещё могут
+     * показывать таблица или журнал отмены. Значения в ячейке не стираются,
+     * чтобы читающий без блокировки поток не увидел чужих данных.
+     */
+    public void remove(Book book) {
+        int id = book.getId();
+        if (!contains(id)) {
+            return;
+        }
+        book.detach();
+        if (--authorBooks[authorIds[id]] == 0) {
+            authorsWithBooks--;
+        }
+        authorIds[id] = -1;
+        size--;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < authorIds.length && authorIds[id] >= 0;
+    }
+
+    @Override
+    public int epochDay(int id) {
+        return epochDays[id];
+    }
+
+    @Override
+    public int pages(int id) {
+        return pages[id];
+    }
+
+    @Override
+    public double rating(int id) {
+        return ratings[id];
+    }
+
+    public int genreId(int id) {
+        return genreIds[id];
+    }
+
+    public int authorId(int id) {
+        return authorIds[id];
+    }
+
+    // Число различных авторов, у которых есть книги
+    public int authorCount() {
+        return authorsWithBooks;
+    }
+
+    // Идентификаторы книг по возрастанию даты (без даты - первыми), при равенстве - по идентификатору
+    public int[] idsByDate() {
+        return sortIds(epochDays);
+    }
+
+    // Идентификаторы книг по возрастанию числа страниц, при равенстве - по идентификатору
+    public int[] idsByPages() {
+        return sortIds(pages);
+    }
+
+    // Ключ и идентификатор упаковываются в long, и сортируется массив примитивов
+    private int[] sortIds(int[] keys) {
+        long[] packed = new long[size];
+        int count = 0;
+        for (int id = 0; id < limit; id++) {
+            if (authorIds[id] >= 0) {
+                packed[count++] = ((long) keys[id] << 32) | id;
+            }
+        }
+        Arrays.parallelSort(packed);
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = (int) packed[i];
+        }
+        return result;
+    }
+
+    private static int[] newAuthorIds(int capacity) {
+        int[] authorIds = new int[capacity];
+        Arrays.fill(authorIds, -1);
+        return authorIds;
+    }
+
+    private int authorId(String author) {
+        Integer authorId = authorIdsByName.get(author);
+        if (authorId == null) {
+            authorId = authorIdsByName.size();
+            authorIdsByName.put(author, authorId);
+            if (authorId == authorBooks.length) {
+                authorBooks = Arrays.copyOf(authorBooks, authorId * 2);
+            }
+        }
+        return authorId;
+    }
+}
@@ -2,7 +2,6 @@
 import javax.swing.*;
 import java.awt.*;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.List;
 
@@ -68,7 +67,7 @@ public class BookDialog extends JDialog {
         formPanel.add(new JLabel("Дата (дд.мм.гггг):"), gbc);
         gbc.gridx = 1; gbc.weightx = 1.0;
         dateField = new JTextField(10);
-        dateField.setText(LocalDate.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy")));
+        dateField.setText(LocalDate.now().format(Book.DATE_FORMAT));
         formPanel.add(dateField, gbc);
 
         // Количество страниц
@@ -159,7 +158,9 @@ public class BookDialog extends JDialog {
         titleField.setText(book.getTitle());
         authorField.setText(book.getAuthor());
         genreCombo.setSelectedItem(book.getGenre());
-        dateField.setText(book.getFormattedDate());
+        if (book.getPublicationDate() != null) {
+            dateField.setText(book.getFormattedDate());
+        }
         pagesField.setText(String.valueOf(book.getPages()));
         ratingSlider.setValue((int)(book.getRating() * 10));
         descriptionArea.setText(book.getDescription());
@@ -187,8 +188,7 @@ public class BookDialog extends JDialog {
         // Парсинг даты
         LocalDate publicationDate;
         try {
-            publicationDate = LocalDate.parse(dateField.getText(),
-                    DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+            publicationDate = LocalDate.parse(dateField.getText(), Book.DATE_FORMAT);
         } catch (DateTimeParseException e) {
             JOptionPane.showMessageDialog(this,
                     "Введите дату в формате дд.мм.гггг", "Ошибка", JOptionPane.ERROR_MESSAGE);
@@ -231,9 +231,14 @@ public class BookDialog extends JDialog {
     }
 
     public void setGenres(List<String> genres) {
+        Object selected = genreCombo.getSelectedItem();
         genreCombo.removeAllItems();
         for (String genre : genres) {
             genreCombo.addItem(genre);
         }
+        // Жанр редактируемой книги не должен сбрасываться на первый из списка
+        if (selected != null) {
+            genreCombo.setSelectedItem(selected);
+        }
     }
 }
\ No newline at end of file
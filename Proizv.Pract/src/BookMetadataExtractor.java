@@ -0,0 +1,335 @@
+// BookMetadataExtractor.java - извлечение метаданных из файлов EPUB, FB2 и PDF
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Читает название, автора, жанр, дату и число страниц из файла книги без
+ * сторонних библиотек. Если в файле нет нужного поля, подставляется значение
+ * по умолчанию (название - имя файла).
+ */
+public class BookMetadataExtractor {
+    public static final String UNKNOWN_AUTHOR = "Неизвестный автор";
+    public static final String UNKNOWN_GENRE = "Без жанра";
+
+    // Сколько байт с начала и с конца PDF просматривать в поисках словаря Info
+    private static final int PDF_SCAN_BYTES = 256 * 1024;
+    private static final Pattern PDF_PAGE_COUNT = Pattern.compile("/Type\\s*/Pages\\b[^>]*?/Count\\s+(\\d+)");
+    private static final Pattern YEAR_MONTH_DAY = Pattern.compile("(\\d{4})(?:-?(\\d{2}))?(?:-?(\\d{2}))?");
+
+    public static boolean isSupported(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".epub") || name.endsWith(".fb2") || name.endsWith(".pdf");
+    }
+
+    public static Book extract(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        String name = fileName.toLowerCase(Locale.ROOT);
+        Metadata metadata = new Metadata();
+        try {
+            if (name.endsWith(".epub")) {
+                readEpub(file, metadata);
+            } else if (name.endsWith(".fb2")) {
+                readFb2(file, metadata);
+            } else if (name.endsWith(".pdf")) {
+                readPdf(file, metadata);
+            }
+        } catch (IOException | RuntimeException | XMLStreamException e) {
+            // Повреждённые метаданные не мешают импорту - остаются значения по умолчанию
+            System.err.println("Не удалось прочитать метаданные " + file + ": " + e.getMessage());
+        }
+
+        int dot = fileName.lastIndexOf('.');
+        return new Book(
+                isBlank(metadata.title) ? (dot > 0 ? fileName.substring(0, dot) : fileName) : metadata.title.trim(),
+                isBlank(metadata.author) ? UNKNOWN_AUTHOR : metadata.author.trim(),
+                isBlank(metadata.genre) ? UNKNOWN_GENRE : metadata.genre.trim(),
+                metadata.date,
+                file.toAbsolutePath().toString(),
+                metadata.pages,
+                0,
+                metadata.description != null ? metadata.description.trim() : ""
+        );
+    }
+
+    private static class Metadata {
+        String title;
+        String author;
+        String genre;
+        LocalDate date;
+        int pages;
+        String description;
+    }
+
+    // EPUB: META-INF/container.xml указывает на OPF-файл с элементами Dublin Core
+    private static void readEpub(Path file, Metadata metadata) throws IOException {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            ZipEntry container = zip.getEntry("META-INF/container.xml");
+            if (container == null) {
+                return;
+            }
+            Document containerDoc = parseXml(zip, container);
+            NodeList rootFiles = containerDoc.getElementsByTagNameNS("*", "rootfile");
+            if (rootFiles.getLength() == 0) {
+                return;
+            }
+            ZipEntry opf = zip.getEntry(((Element) rootFiles.item(0)).getAttribute("full-path"));
+            if (opf == null) {
+                return;
+            }
+            Document opfDoc = parseXml(zip, opf);
+            metadata.title = firstText(opfDoc, "title");
+            metadata.author = firstText(opfDoc, "creator");
+            metadata.genre = firstText(opfDoc, "subject");
+            metadata.date = parseDate(firstText(opfDoc, "date"));
+            metadata.description = firstText(opfDoc, "description");
+        }
+    }
+
+    private static Document parseXml(ZipFile zip, ZipEntry entry) throws IOException {
+        try (InputStream in = zip.getInputStream(entry)) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            return builder.parse(in);
+        } catch (Exception e) {
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static String firstText(Document doc, String localName) {
+        NodeList nodes = doc.getElementsByTagNameNS("*", localName);
+        return nodes.getLength() > 0 ? nodes.item(0).getTextContent() : null;
+    }
+
+    // FB2: потоковое чтение только блока <title-info>, без загрузки вложенных картинок
+    private static void readFb2(Path file, Metadata metadata) throws IOException, XMLStreamException {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try (InputStream in = Files.newInputStream(file)) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                boolean inTitleInfo = false;
+                boolean inAuthor = false;
+                StringBuilder author = new StringBuilder();
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String tag = reader.getLocalName();
+                        if (tag.equals("title-info")) {
+                            inTitleInfo = true;
+                        } else if (!inTitleInfo) {
+                            if (tag.equals("body")) {
+                                break;
+                            }
+                        } else if (tag.equals("author") && metadata.author == null) {
+                            inAuthor = true;
+                        } else if (inAuthor && (tag.equals("first-name") || tag.equals("middle-name") || tag.equals("last-name"))) {
+                            String part = reader.getElementText().trim();
+                            if (!part.isEmpty()) {
+                                if (author.length() > 0) author.append(' ');
+                                author.append(part);
+                            }
+                        } else if (tag.equals("book-title")) {
+                            metadata.title = reader.getElementText();
+                        } else if (tag.equals("genre") && metadata.genre == null) {
+                            metadata.genre = reader.getElementText();
+                        } else if (tag.equals("date")) {
+                            String value = reader.getAttributeValue(null, "value");
+                            String text = reader.getElementText();
+                            metadata.date = parseDate(value != null ? value : text);
+                        } else if (tag.equals("annotation")) {
+                            metadata.description = readAllText(reader);
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        String tag = reader.getLocalName();
+                        if (tag.equals("author") && inAuthor) {
+                            inAuthor = false;
+                            metadata.author = author.toString();
+                        } else if (tag.equals("title-info")) {
+                            break;
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+
+    // Текст элемента со всеми вложенными элементами (абзацы аннотации)
+    private static String readAllText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+                if (text.length() > 0 && text.charAt(text.length() - 1) != '\n') text.append('\n');
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                text.append(reader.getText().trim());
+            }
+        }
+        return text.toString();
+    }
+
+    // PDF: словарь Info и число страниц ищутся в начале и в конце файла
+    private static void readPdf(Path file, Metadata metadata) throws IOException {
+        String text;
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+            long length = raf.length();
+            if (length <= 2L * PDF_SCAN_BYTES) {
+                byte[] bytes = new byte[(int) length];
+                raf.readFully(bytes);
+                text = new String(bytes, StandardCharsets.ISO_8859_1);
+            } else {
+                byte[] head = new byte[PDF_SCAN_BYTES];
+                raf.readFully(head);
+                byte[] tail = new byte[PDF_SCAN_BYTES];
+                raf.seek(length - PDF_SCAN_BYTES);
+                raf.readFully(tail);
+                text = new String(head, StandardCharsets.ISO_8859_1) + new String(tail, StandardCharsets.ISO_8859_1);
+            }
+        }
+
+        metadata.title = pdfString(text, "/Title");
+        metadata.author = pdfString(text, "/Author");
+        metadata.genre = pdfString(text, "/Subject");
+        String created = pdfString(text, "/CreationDate");
+        if (created != null) {
+            metadata.date = parseDate(created.startsWith("D:") ? created.substring(2) : created);
+        }
+
+        Matcher matcher = PDF_PAGE_COUNT.matcher(text);
+        while (matcher.find()) {
+            try {
+                metadata.pages = Math.max(metadata.pages, Integer.parseInt(matcher.group(1)));
+            } catch (NumberFormatException e) {
+                // Слишком большое число - не число страниц
+            }
+        }
+    }
+
+    // Значение строкового ключа PDF: (литерал) или <шестнадцатеричная строка>
+    private static String pdfString(String text, String key) {
+        int pos = text.lastIndexOf(key);
+        if (pos < 0) {
+            return null;
+        }
+        int i = pos + key.length();
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) i++;
+        if (i >= text.length()) {
+            return null;
+        }
+
+        byte[] bytes;
+        if (text.charAt(i) == '(') {
+            bytes = pdfLiteral(text, i + 1);
+        } else if (text.charAt(i) == '<') {
+            int end = text.indexOf('>', i);
+            if (end < 0) {
+                return null;
+            }
+            String hex = text.substring(i + 1, end).replaceAll("\\s", "");
+            if (hex.length() % 2 == 1) hex += "0";
+            bytes = new byte[hex.length() / 2];
+            for (int k = 0; k < bytes.length; k++) {
+                bytes[k] = (byte) Integer.parseInt(hex.substring(2 * k, 2 * k + 2), 16);
+            }
+        } else {
+            return null;
+        }
+
+        // Строки с BOM FE FF записаны в UTF-16BE, остальные - в PDFDocEncoding (~Latin-1)
+        if (bytes.length >= 2 && (bytes[0] & 0xFF) == 0xFE && (bytes[1] & 0xFF) == 0xFF) {
+            return new String(bytes, 2, bytes.length - 2, StandardCharsets.UTF_16BE);
+        }
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    private static byte[] pdfLiteral(String text, int start) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int depth = 1;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                if (next >= '0' && next <= '7') {
+                    int end = i;
+                    while (end < text.length() && end < i + 3 && text.charAt(end) >= '0' && text.charAt(end) <= '7') end++;
+                    out.write(Integer.parseInt(text.substring(i, end), 8));
+                    i = end - 1;
+                } else if (next == 'n') {
+                    out.write('\n');
+                } else if (next == 'r') {
+                    out.write('\r');
+                } else if (next == 't') {
+                    out.write('\t');
+                } else if (next != '\n' && next != '\r') {
+                    out.write(next);
+                }
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                break;
+            }
+            out.write(c);
+        }
+        return out.toByteArray();
+    }
+
+    // Даты вида 2020, 2020-05, 2020-05-17, 20200517...
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        Matcher matcher = YEAR_MONTH_DAY.matcher(value.trim());
+        if (!matcher.lookingAt()) {
+            return null;
+        }
+        try {
+            int year = Integer.parseInt(matcher.group(1));
+            int month = matcher.group(2) != null ? Integer.parseInt(matcher.group(2)) : 1;
+            int day = matcher.group(3) != null ? Integer.parseInt(matcher.group(3)) : 1;
+            return LocalDate.of(year, month, day);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
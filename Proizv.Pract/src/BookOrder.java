@@ -0,0 +1,27 @@
+// BookOrder.java - порядки сортировки книг, поддерживаемые библиотекой
+
+import java.util.Comparator;
+
+/**
+ * При равных значениях книги упорядочиваются по идентификатору, поэтому
+ * порядок полный и положение книги можно найти бинарным поиском.
+ */
+public enum BookOrder {
+    TITLE(Comparator.comparing(Book::getTitle, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))),
+    AUTHOR(Comparator.comparing(Book::getAuthor, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))),
+    GENRE(Comparator.comparing(Book::getGenre, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))),
+    // Книги без даты (BookColumns.NULL_DATE) идут первыми
+    DATE(Comparator.comparingInt(Book::getEpochDay)),
+    PAGES(Comparator.comparingInt(Book::getPages)),
+    RATING(Comparator.comparingDouble(Book::getRating));
+
+    private final Comparator<Book> comparator;
+
+    BookOrder(Comparator<Book> comparator) {
+        this.comparator = comparator.thenComparingInt(Book::getId);
+    }
+
+    public Comparator<Book> comparator() {
+        return comparator;
+    }
+}
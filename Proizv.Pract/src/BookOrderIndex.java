@@ -0,0 +1,92 @@
+// BookOrderIndex.java - книги библиотеки, отсортированные в одном порядке
+
+import java.util.*;
+
+/**
+ * Отсортированный массив книг, который отдаётся читателям без копирования и
+ * после публикации не меняется. Изменения копятся и вливаются одним слиянием
+ * в новый массив (flush), так что пакет из k изменений стоит O(n + k log k),
+ * а не k сдвигов массива. Вызовы add, remove и flush - под блокировкой записи.
+ */
+class BookOrderIndex {
+    private final Comparator<Book> comparator;
+    private volatile Book[] sorted;
+    private final List<Book> added = new ArrayList<>();
+    private final Set<Book> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // sorted - все книги, уже упорядоченные по comparator
+    BookOrderIndex(Comparator<Book> comparator, Book[] sorted) {
+        this.comparator = comparator;
+        this.sorted = sorted;
+    }
+
+    void add(Book book) {
+        added.add(book);
+    }
+
+    void remove(Book book) {
+        for (int i = added.size() - 1; i >= 0; i--) {
+            if (added.get(i) == book) {
+                added.remove(i);
+                return;
+            }
+        }
+        removed.add(book);
+    }
+
+    /*
+     * Слияние накопленных изменений в новый массив. Места вставки и удаления
+     * находятся бинарным поиском (удаляемая книга с момента вставки не менялась),
+     * а промежутки между ними копируются целиком, без сравнения элементов.
+     */
+    void flush() {
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        added.sort(comparator);
+        Book[] current = sorted;
+        int[] removedAt = new int[removed.size()];
+        int removedCount = 0;
+        for (Book book : removed) {
+            int pos = Arrays.binarySearch(current, book, comparator);
+            if (pos >= 0 && current[pos] == book) {
+                removedAt[removedCount++] = pos;
+            }
+        }
+        Arrays.sort(removedAt, 0, removedCount);
+
+        Book[] result = new Book[current.length - removedCount + added.size()];
+        int i = 0;
+        int k = 0;
+        int nextRemoved = 0;
+        int nextAdded = 0;
+        while (true) {
+            int removeAt = nextRemoved < removedCount ? removedAt[nextRemoved] : current.length;
+            int insertAt = current.length;
+            if (nextAdded < added.size()) {
+                int pos = Arrays.binarySearch(current, i, current.length, added.get(nextAdded), comparator);
+                insertAt = pos >= 0 ? pos : -pos - 1;
+            }
+            int stop = Math.min(removeAt, insertAt);
+            System.arraycopy(current, i, result, k, stop - i);
+            k += stop - i;
+            i = stop;
+            if (nextAdded < added.size() && insertAt <= removeAt) {
+                result[k++] = added.get(nextAdded++);
+            } else if (nextRemoved < removedCount) {
+                i++;
+                nextRemoved++;
+            } else {
+                break;
+            }
+        }
+        sorted = result;
+        added.clear();
+        removed.clear();
+    }
+
+    // Неизменяемый список поверх опубликованного массива
+    List<Book> books() {
+        return Collections.unmodifiableList(Arrays.asList(sorted));
+    }
+}
@@ -0,0 +1,138 @@
+// BookQuery.java - запрос к библиотеке по нескольким условиям
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+/**
+ * Условия объединяются через И; незаданное условие выборку не ограничивает.
+ * Границы диапазонов включаются. Пример:
+ * new BookQuery().genre("Роман").minRating(4).maxPages(299)
+ */
+public class BookQuery {
+    private String title;
+    private String author;
+    private String genre;
+    private LocalDate publishedFrom;
+    private LocalDate publishedTo;
+    private Double minRating;
+    private Double maxRating;
+    private Integer minPages;
+    private Integer maxPages;
+
+    // Название содержит подстроку (без учёта регистра)
+    public BookQuery title(String title) {
+        this.title = title;
+        return this;
+    }
+
+    // Автор содержит подстроку (без учёта регистра)
+    public BookQuery author(String author) {
+        this.author = author;
+        return this;
+    }
+
+    // Жанр совпадает (без учёта регистра)
+    public BookQuery genre(String genre) {
+        this.genre = genre;
+        return this;
+    }
+
+    public BookQuery publishedBetween(LocalDate from, LocalDate to) {
+        this.publishedFrom = from;
+        this.publishedTo = to;
+        return this;
+    }
+
+    public BookQuery minRating(double minRating) {
+        this.minRating = minRating;
+        return this;
+    }
+
+    public BookQuery maxRating(double maxRating) {
+        this.maxRating = maxRating;
+        return this;
+    }
+
+    public BookQuery minPages(int minPages) {
+        this.minPages = minPages;
+        return this;
+    }
+
+    public BookQuery maxPages(int maxPages) {
+        this.maxPages = maxPages;
+        return this;
+    }
+
+    public String getTitle() { return title; }
+    public String getAuthor() { return author; }
+    public String getGenre() { return genre; }
+    public LocalDate getPublishedFrom() { return publishedFrom; }
+    public LocalDate getPublishedTo() { return publishedTo; }
+    public Double getMinRating() { return minRating; }
+    public Double getMaxRating() { return maxRating; }
+    public Integer getMinPages() { return minPages; }
+    public Integer getMaxPages() { return maxPages; }
+
+    public boolean hasTitle() {
+        return title != null && !title.isEmpty();
+    }
+
+    public boolean hasAuthor() {
+        return author != null && !author.isEmpty();
+    }
+
+    public boolean hasGenre() {
+        return genre != null && !genre.isEmpty();
+    }
+
+    public boolean hasDateRange() {
+        return publishedFrom != null || publishedTo != null;
+    }
+
+    public boolean hasRatingRange() {
+        return minRating != null || maxRating != null;
+    }
+
+    public boolean hasPagesRange() {
+        return minPages != null || maxPages != null;
+    }
+
+    // Есть ли хоть одно условие
+    public boolean hasConditions() {
+        return hasTitle() || hasAuthor() || hasGenre() || hasDateRange() || hasRatingRange() || hasPagesRange();
+    }
+
+    // Проверка условий по самой книге
+    public boolean matchesTitle(Book book) {
+        return contains(book.getTitle(), title);
+    }
+
+    public boolean matchesAuthor(Book book) {
+        return contains(book.getAuthor(), author);
+    }
+
+    public boolean matchesGenre(Book book) {
+        return book.getGenre() != null && book.getGenre().equalsIgnoreCase(genre);
+    }
+
+    public boolean matchesDate(Book book) {
+        LocalDate date = book.getPublicationDate();
+        return date != null
+                && (publishedFrom == null || !date.isBefore(publishedFrom))
+                && (publishedTo == null || !date.isAfter(publishedTo));
+    }
+
+    public boolean matchesRating(Book book) {
+        return (minRating == null || book.getRating() >= minRating)
+                && (maxRating == null || book.getRating() <= maxRating);
+    }
+
+    public boolean matchesPages(Book book) {
+        return (minPages == null || book.getPages() >= minPages)
+                && (maxPages == null || book.getPages() <= maxPages);
+    }
+
+    private static boolean contains(String value, String part) {
+        return value != null && value.toLowerCase(Locale.ROOT).contains(part.toLowerCase(Locale.ROOT));
+    }
+}
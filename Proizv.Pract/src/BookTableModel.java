@@ -1,21 +1,49 @@
 // BookTableModel.java - модель данных для таблицы
 import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
+/**
+ * Модель читает строки прямо из списков библиотеки, не копируя их: таблица
+ * запрашивает только видимые строки. Сортировка по колонке берёт готовый
+ * отсортированный список из библиотеки, а смена направления только
+ * переворачивает нумерацию строк. После изменения библиотеки таблица
+ * получает события только о затронутых строках, поэтому выделение и
+ * прокрутка сохраняются.
+ */
 public class BookTableModel extends AbstractTableModel{
 
-    private final List<Book> books;
+    private static final BookOrder[] COLUMN_ORDERS = {
+            BookOrder.TITLE, BookOrder.AUTHOR, BookOrder.GENRE, BookOrder.DATE, BookOrder.PAGES, BookOrder.RATING
+    };
+    // Больший участок изменённых строк обновляет таблицу целиком
+    private static final int MAX_CHANGED_ROWS = 1000;
+    // Тексты чисел страниц меньше этого создаются один раз и переиспользуются при отрисовке
+    private static final String[] PAGES_TEXT = new String[4096];
+
+    private final Library library;
+    // Результат поиска или null, если показывается вся библиотека
+    private List<Book> filter;
+    // Строки в порядке сортировки по возрастанию
+    private List<Book> rows;
+    private int sortColumn = -1;
+    private boolean descending;
     private final String[] columnNames = {
             "Название", "Автор", "Жанр", "Дата публикации", "Страниц", "Рейтинг"
     };
 
-    public BookTableModel(List<Book> books) {
-        this.books = books;
+    public BookTableModel(Library library) {
+        this.library = library;
+        reload();
     }
 
     @Override
     public int getRowCount() {
-        return books.size();
+        return rows.size();
     }
 
     @Override
@@ -23,44 +51,241 @@ public class BookTableModel extends AbstractTableModel{
         return columnNames.length;
     }
 
+    // Название отсортированной колонки дополняется стрелкой направления
     @Override
     public String getColumnName(int column) {
+        if (column == sortColumn) {
+            return columnNames[column] + (descending ? " ▼" : " ▲");
+        }
         return columnNames[column];
     }
 
+    /*
+     * Все значения - готовые строки: дата и рейтинг закэшированы в книге,
+     * поэтому отрисовка при прокрутке не создаёт объектов. Сравнивать
+     * значения колонок не нужно - сортирует библиотека по своим порядкам.
+     */
     @Override
     public Object getValueAt(int rowIndex, int columnIndex) {
-        Book book = books.get(rowIndex);
+        Book book = getBookAt(rowIndex);
         switch (columnIndex) {
             case 0: return book.getTitle();
             case 1: return book.getAuthor();
             case 2: return book.getGenre();
             case 3: return book.getFormattedDate();
-            case 4: return book.getPages();
-            case 5: return String.format("%.1f", book.getRating());
+            case 4: return pagesText(book.getPages());
+            case 5: return book.getFormattedRating();
             default: return null;
         }
     }
 
     @Override
     public Class<?> getColumnClass(int columnIndex) {
-        switch (columnIndex) {
-            case 4: return Integer.class;
-            case 5: return String.class;
-            default: return String.class;
+        return String.class;
+    }
+
+    private static String pagesText(int pages) {
+        if (pages < 0 || pages >= PAGES_TEXT.length) {
+            return Integer.toString(pages);
         }
+        String text = PAGES_TEXT[pages];
+        if (text == null) {
+            text = Integer.toString(pages);
+            PAGES_TEXT[pages] = text;
+        }
+        return text;
     }
 
     public Book getBookAt(int rowIndex) {
-        if (rowIndex >= 0 && rowIndex < books.size()) {
-            return books.get(rowIndex);
+        if (rowIndex >= 0 && rowIndex < rows.size()) {
+            return rows.get(descending ? rows.size() - 1 - rowIndex : rowIndex);
         }
         return null;
     }
 
-    public void updateData(List<Book> newBooks) {
-        books.clear();
-        books.addAll(newBooks);
+    // Строка книги с данным идентификатором или -1
+    public int rowOf(int bookId) {
+        int index = -1;
+        if (filter == null) {
+            // Вся библиотека отсортирована полностью - книгу находит бинарный поиск
+            Book book = library.getBook(bookId);
+            if (book != null) {
+                Comparator<Book> order = sortColumn >= 0
+                        ? COLUMN_ORDERS[sortColumn].comparator()
+                        : Comparator.comparingInt(Book::getId);
+                index = Math.max(Collections.binarySearch(rows, book, order), -1);
+            }
+        } else {
+            for (int i = 0; i < rows.size() && index < 0; i++) {
+                if (rows.get(i).getId() == bookId) {
+                    index = i;
+                }
+            }
+        }
+        return index >= 0 && descending ? rows.size() - 1 - index : index;
+    }
+
+    public int getSortColumn() {
+        return sortColumn;
+    }
+
+    // Показ всей библиотеки
+    public void showAll() {
+        filter = null;
+        replaceRows();
+    }
+
+    // Показ результата поиска (в том числе повторного - после изменения библиотеки)
+    public void showBooks(List<Book> books) {
+        filter = books;
+        replaceRows();
+    }
+
+    /*
+     * Перечитывание строк после изменения библиотеки. В результате поиска
+     * книги только заменяются текущими версиями; книги, которые стали
+     * подходить под запрос, добавляет повторный поиск (см. showBooks).
+     */
+    public void refresh() {
+        if (filter != null) {
+            // Изменённые книги заменяются текущими версиями, удалённые убираются
+            List<Book> current = new ArrayList<>(filter.size());
+            for (Book book : filter) {
+                Book actual = library.getBook(book.getId());
+                if (actual != null) {
+                    current.add(actual);
+                }
+            }
+            filter = current;
+        }
+        replaceRows();
+    }
+
+    // Повторный выбор той же колонки меняет направление без пересортировки
+    public void sortBy(int column) {
+        if (column == sortColumn) {
+            descending = !descending;
+        } else {
+            sortColumn = column;
+            descending = false;
+            reload();
+        }
         fireTableDataChanged();
     }
+
+    /*
+     * Новые строки сравниваются со старыми: общие начало и конец списков
+     * остаются на месте, а между ними обычно одна книга - изменённая,
+     * добавленная, удалённая или переместившаяся при сортировке. О ней
+     * таблица получает событие строки; большой участок изменений
+     * обновляет таблицу целиком.
+     */
+    private void replaceRows() {
+        List<Book> oldRows = rows;
+        reload();
+        int oldSize = oldRows.size();
+        int newSize = rows.size();
+        int common = Math.min(oldSize, newSize);
+        int start = 0;
+        while (start < common && oldRows.get(start) == rows.get(start)) {
+            start++;
+        }
+        int end = 0;
+        while (end < common - start && oldRows.get(oldSize - 1 - end) == rows.get(newSize - 1 - end)) {
+            end++;
+        }
+        // Изменённый участок: [start, oldEnd) в старом списке и [start, newEnd) в новом
+        int oldEnd = oldSize - end;
+        int newEnd = newSize - end;
+        if (oldEnd - start == newEnd - start && sameBooks(oldRows, start, rows, start, oldEnd - start)) {
+            if (start < oldEnd) {
+                fireRowsUpdated(start, oldEnd - 1);
+            }
+        } else if (oldEnd - start == newEnd - start && sameRows(oldRows, start + 1, rows, start, oldEnd - start - 1)) {
+            // Книга сдвинулась к концу списка
+            fireRowsDeleted(start, start, oldSize);
+            fireRowsInserted(newEnd - 1, newEnd - 1);
+        } else if (oldEnd - start == newEnd - start && sameRows(oldRows, start, rows, start + 1, oldEnd - start - 1)) {
+            // Книга сдвинулась к началу списка
+            fireRowsDeleted(oldEnd - 1, oldEnd - 1, oldSize);
+            fireRowsInserted(start, start);
+        } else if ((oldEnd - start) + (newEnd - start) <= MAX_CHANGED_ROWS) {
+            if (start < oldEnd) {
+                fireRowsDeleted(start, oldEnd - 1, oldSize);
+            }
+            if (start < newEnd) {
+                fireRowsInserted(start, newEnd - 1);
+            }
+        } else {
+            fireTableDataChanged();
+        }
+    }
+
+    private static boolean sameRows(List<Book> a, int aFrom, List<Book> b, int bFrom, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a.get(aFrom + i) != b.get(bFrom + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Те же книги, возможно в новых версиях
+    private static boolean sameBooks(List<Book> a, int aFrom, List<Book> b, int bFrom, int length) {
+        for (int i = 0; i < length; i++) {
+            if (a.get(aFrom + i).getId() != b.get(bFrom + i).getId()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // События получают номера строк таблицы: при обратном порядке они считаются с конца списка
+    private void fireRowsUpdated(int first, int last) {
+        int size = rows.size();
+        fireTableRowsUpdated(descending ? size - 1 - last : first, descending ? size - 1 - first : last);
+    }
+
+    private void fireRowsDeleted(int first, int last, int oldSize) {
+        fireTableRowsDeleted(descending ? oldSize - 1 - last : first, descending ? oldSize - 1 - first : last);
+    }
+
+    private void fireRowsInserted(int first, int last) {
+        int size = rows.size();
+        fireTableRowsInserted(descending ? size - 1 - last : first, descending ? size - 1 - first : last);
+    }
+
+    private void reload() {
+        if (filter == null) {
+            rows = sortColumn >= 0 ? library.getAllBooks(COLUMN_ORDERS[sortColumn]) : library.getAllBooks();
+        } else if (sortColumn < 0) {
+            rows = filter;
+        } else {
+            rows = sortFiltered(COLUMN_ORDERS[sortColumn]);
+        }
+    }
+
+    /*
+     * Большой результат поиска дешевле отобрать из готового отсортированного
+     * списка всей библиотеки, чем сортировать заново; маленький - сортируется.
+     */
+    private List<Book> sortFiltered(BookOrder order) {
+        int size = filter.size();
+        int log = 32 - Integer.numberOfLeadingZeros(Math.max(size, 1));
+        List<Book> all = library.getAllBooks();
+        if ((long) size * log < all.size()) {
+            List<Book> sorted = new ArrayList<>(filter);
+            sorted.sort(order.comparator());
+            return sorted;
+        }
+        Set<Book> members = Collections.newSetFromMap(new IdentityHashMap<>(size * 2));
+        members.addAll(filter);
+        List<Book> sorted = new ArrayList<>(size);
+        for (Book book : library.getAllBooks(order)) {
+            if (members.contains(book)) {
+                sorted.add(book);
+            }
+        }
+        return sorted;
+    }
 }
@@ -0,0 +1,96 @@
+// BulkImporter.java - параллельный импорт книг из папки
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Обходит папку рекурсивно и извлекает метаданные файлов книг в пуле
+ * ForkJoinPool. Вместе с метаданными считается хэш содержимого для поиска
+ * дубликатов; неизменённые файлы берутся из MetadataCache без чтения.
+ * Книги передаются получателю пачками по BATCH_SIZE, между пачками
+ * проверяется отмена.
+ */
+public class BulkImporter {
+    public static final int BATCH_SIZE = 500;
+
+    // Все поддерживаемые файлы книг в папке и её подпапках
+    public static List<Path> scan(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(BookMetadataExtractor::isSupported)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Импорт файлов: файлы, для которых known возвращает true (уже в библиотеке),
+     * пропускаются без чтения, если по кэшу их размер и время изменения
+     * прежние; изменённые читаются заново и передаются вместе с новыми.
+     * cache может быть null - тогда известные файлы пропускаются всегда.
+     * batchSink получает готовые пачки книг, progress - число обработанных
+     * файлов. Возвращает количество переданных книг.
+     */
+    public static int importFiles(List<Path> files, MetadataCache cache, Predicate<Path> known,
+                                  Consumer<List<Book>> batchSink,
+                                  IntConsumer progress, BooleanSupplier cancelled) throws IOException {
+        // Разбор файлов больше ждёт диск, чем процессор, поэтому потоков вдвое больше ядер
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors() * 2);
+        int imported = 0;
+        try {
+            for (int from = 0; from < files.size() && !cancelled.getAsBoolean(); from += BATCH_SIZE) {
+                List<Path> chunk = files.subList(from, Math.min(from + BATCH_SIZE, files.size()));
+                List<Book> batch = pool.submit(() -> chunk.parallelStream()
+                        .filter(file -> !cancelled.getAsBoolean() && !(known.test(file) && unchanged(file, cache)))
+                        .map(file -> extractQuietly(file, cache))
+                        .filter(book -> book != null)
+                        .collect(Collectors.toCollection(ArrayList::new))).get();
+                if (!batch.isEmpty()) {
+                    batchSink.accept(batch);
+                    imported += batch.size();
+                }
+                progress.accept(from + chunk.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return imported;
+    }
+
+    private static boolean unchanged(Path file, MetadataCache cache) {
+        try {
+            return cache == null || cache.isCurrent(file);
+        } catch (IOException e) {
+            // Недоступный файл пропускается
+            return true;
+        }
+    }
+
+    private static Book extractQuietly(Path file, MetadataCache cache) {
+        try {
+            if (cache != null) {
+                return cache.extract(file);
+            }
+            Book book = BookMetadataExtractor.extract(file);
+            book.setContentHash(ContentHasher.hash(file));
+            return book;
+        } catch (IOException e) {
+            System.err.println("Не удалось импортировать " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
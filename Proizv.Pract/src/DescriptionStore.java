@@ -0,0 +1,155 @@
+// DescriptionStore.java - отложенная загрузка описаний книг из файла библиотеки
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Читает описания по смещениям в файле библиотеки и держит последние
+ * прочитанные в ограниченном LRU-кэше. Канал файла остаётся открытым до
+ * замены файла новым снимком (см. replaceFile) или до закрытия хранилища.
+ */
+public class DescriptionStore implements Closeable {
+    private static final int CACHE_SIZE = 256;
+
+    // Канал и смещения описаний в нём; заменяются вместе при замене файла
+    private static class Source {
+        final FileChannel channel;
+        final int[] offsets;
+
+        Source(FileChannel channel, int[] offsets) {
+            this.channel = channel;
+            this.offsets = offsets;
+        }
+    }
+
+    private final Path file;
+    // null - хранилище закрыто
+    private volatile Source source;
+    private final Map<Integer, String> cache = new LinkedHashMap<Integer, String>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    public DescriptionStore(Path file, int[] offsets) throws IOException {
+        this.file = file;
+        this.source = new Source(FileChannel.open(file, StandardOpenOption.READ), offsets);
+    }
+
+    // Число описаний; номер описания книги остаётся прежним и после замены файла
+    public int size() {
+        Source current = source;
+        return current != null ? current.offsets.length : 0;
+    }
+
+    public String load(int index) {
+        synchronized (cache) {
+            String cached = cache.get(index);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        String value;
+        try {
+            value = read(index);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return "";
+        }
+        if (value != null) {
+            synchronized (cache) {
+                cache.put(index, value);
+            }
+        }
+        return value;
+    }
+
+    /*
+     * Замена файла библиотеки новым снимком replacement. Канал прежнего файла
+     * закрывается до переименования: в Windows открытый файл заменить нельзя.
+     * offsets - смещения описаний в новом файле по прежним номерам (-1 - описания
+     * там нет). Читатели, попавшие на закрытый канал, ждут окончания замены.
+     */
+    public synchronized void replaceFile(Path replacement, int[] offsets) throws IOException {
+        Source previous = source;
+        if (previous == null) {
+            throw new ClosedChannelException();
+        }
+        previous.channel.close();
+        try {
+            Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Прежний файл остался на месте - описания снова читаются из него
+            source = new Source(FileChannel.open(file, StandardOpenOption.READ), previous.offsets);
+            throw e;
+        }
+        source = new Source(FileChannel.open(file, StandardOpenOption.READ), offsets);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        Source current = source;
+        source = null;
+        if (current != null) {
+            current.channel.close();
+        }
+    }
+
+    private String read(int index) throws IOException {
+        while (true) {
+            Source current = source;
+            if (current == null) {
+                throw new ClosedChannelException();
+            }
+            try {
+                int offset = current.offsets[index];
+                return offset >= 0 ? read(current.channel, offset) : null;
+            } catch (ClosedChannelException e) {
+                // Файл заменяется: после замены описание читается из нового файла
+                synchronized (this) {
+                    if (source == current) {
+                        // Канал закрыт прерыванием читающего потока (отмена поиска) - открываем заново
+                        source = new Source(FileChannel.open(file, StandardOpenOption.READ), current.offsets);
+                    }
+                }
+                if (e instanceof ClosedByInterruptException) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static String read(FileChannel channel, long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+        readFully(channel, header, position);
+        int length = header.getInt(0);
+        if (length < 0) {
+            return null;
+        }
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        readFully(channel, bytes, position + Integer.BYTES);
+        return new String(bytes.array(), 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Неожиданный конец файла библиотеки");
+            }
+        }
+    }
+}
@@ -0,0 +1,266 @@
+// FullTextIndex.java - полнотекстовый индекс по названиям и описаниям с ранжированием BM25
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Инвертированный индекс: для каждого терма хранятся идентификаторы книг
+ * (по возрастанию) и число вхождений. Слова названия весят больше слов
+ * описания. Результаты упорядочиваются по BM25, возвращаются лучшие k.
+ * Индекс сохраняется в файл вместе с номером последнего изменения журнала,
+ * чтобы при запуске не читать все описания заново.
+ */
+public class FullTextIndex {
+    private static final int MAGIC = 0x45424654; // "EBFT"
+    // 2 - термы записываются длиной и байтами UTF-8 (writeUTF не пишет строки длиннее 64 КБ)
+    private static final short VERSION = 2;
+    // Параметры BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Вхождение в название считается за несколько вхождений в описание
+    private static final int TITLE_WEIGHT = 3;
+
+    // Книги и частоты одного терма
+    private static class Postings {
+        int[] ids = new int[2];
+        int[] freqs = new int[2];
+        int size;
+
+        void add(int id, int freq) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            int pos = size;
+            if (size > 0 && ids[size - 1] > id) {
+                pos = -Arrays.binarySearch(ids, 0, size, id) - 1;
+                System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+                System.arraycopy(freqs, pos, freqs, pos + 1, size - pos);
+            }
+            ids[pos] = id;
+            freqs[pos] = freq;
+            size++;
+        }
+
+        void remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0) {
+                System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+                System.arraycopy(freqs, pos + 1, freqs, pos, size - pos - 1);
+                size--;
+            }
+        }
+    }
+
+    // Термы книги нужны для удаления её из индекса
+    private static class Document {
+        final String[] terms;
+        final int length;
+
+        Document(String[] terms, int length) {
+            this.terms = terms;
+            this.length = length;
+        }
+    }
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private long totalLength;
+    // Номер последнего изменения журнала, учтённого в сохранённом индексе
+    private long seq;
+
+    // Книга, уже находящаяся в индексе, не переиндексируется
+    public void add(int id, Book book) {
+        if (documents.containsKey(id)) {
+            return;
+        }
+        Map<String, Integer> freqs = new HashMap<>();
+        for (String term : TextAnalyzer.analyze(book.getTitle())) {
+            freqs.merge(term, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String term : TextAnalyzer.analyze(book.getDescription())) {
+            freqs.merge(term, 1, Integer::sum);
+        }
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : freqs.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), k -> new Postings()).add(id, entry.getValue());
+            length += entry.getValue();
+        }
+        documents.put(id, new Document(freqs.keySet().toArray(new String[0]), length));
+        totalLength += length;
+    }
+
+    public void remove(int id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            Postings list = postings.get(term);
+            if (list != null) {
+                list.remove(id);
+                if (list.size == 0) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= document.length;
+    }
+
+    public boolean contains(int id) {
+        return documents.containsKey(id);
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    // Не более limit идентификаторов книг по убыванию релевантности
+    public int[] search(String query, int limit) {
+        Set<String> terms = new LinkedHashSet<>(TextAnalyzer.analyze(query));
+        int count = documents.size();
+        if (terms.isEmpty() || count == 0 || limit <= 0) {
+            return new int[0];
+        }
+        double averageLength = (double) totalLength / count;
+        Map<Integer, double[]> scores = new HashMap<>();
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (count - list.size + 0.5) / (list.size + 0.5));
+            for (int i = 0; i < list.size; i++) {
+                int freq = list.freqs[i];
+                double norm = K1 * (1 - B + B * documents.get(list.ids[i]).length / averageLength);
+                scores.computeIfAbsent(list.ids[i], k -> new double[1])[0] += idf * freq * (K1 + 1) / (freq + norm);
+            }
+        }
+
+        // Куча из limit лучших: в вершине худший из отобранных
+        Comparator<Map.Entry<Integer, double[]>> byScore = Comparator
+                .<Map.Entry<Integer, double[]>>comparingDouble(e -> e.getValue()[0])
+                .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+        PriorityQueue<Map.Entry<Integer, double[]>> top = new PriorityQueue<>(byScore);
+        for (Map.Entry<Integer, double[]> entry : scores.entrySet()) {
+            if (top.size() < limit) {
+                top.add(entry);
+            } else if (byScore.compare(entry, top.peek()) > 0) {
+                top.poll();
+                top.add(entry);
+            }
+        }
+        int[] result = new int[top.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = top.poll().getKey();
+        }
+        return result;
+    }
+
+    // Сохранение через временный файл; seq - номер последнего учтённого изменения
+    public void save(Path file, long seq) throws IOException {
+        Path temp = Paths.get(file + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(seq);
+            out.writeInt(documents.size());
+            for (Map.Entry<Integer, Document> entry : documents.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeInt(entry.getValue().length);
+            }
+            out.writeInt(postings.size());
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                Postings list = entry.getValue();
+                writeTerm(out, entry.getKey());
+                out.writeInt(list.size);
+                for (int i = 0; i < list.size; i++) {
+                    out.writeInt(list.ids[i]);
+                    out.writeInt(list.freqs[i]);
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeTerm(DataOutputStream out, String term) throws IOException {
+        byte[] bytes = term.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // Номер записи журнала из заголовка сохранённого индекса или -1, если индекс не сохранён
+    public static long readSeq(Path file) {
+        if (!Files.exists(file)) {
+            return -1;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                return -1;
+            }
+            return in.readLong();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // Сохранённый индекс или null, если файла нет или он испорчен
+    public static FullTextIndex load(Path file) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                return null;
+            }
+            FullTextIndex index = new FullTextIndex();
+            index.seq = in.readLong();
+            int documentCount = in.readInt();
+            Map<Integer, Integer> lengths = new HashMap<>(documentCount * 2);
+            for (int i = 0; i < documentCount; i++) {
+                lengths.put(in.readInt(), in.readInt());
+            }
+            // Списки термов книг восстанавливаются по спискам книг термов
+            Map<Integer, List<String>> terms = new HashMap<>(documentCount * 2);
+            int termCount = in.readInt();
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < termCount; i++) {
+                int termLength = in.readInt();
+                if (termLength > scratch.length) {
+                    scratch = new byte[Math.max(termLength, scratch.length * 2)];
+                }
+                in.readFully(scratch, 0, termLength);
+                String term = new String(scratch, 0, termLength, StandardCharsets.UTF_8);
+                int size = in.readInt();
+                Postings list = new Postings();
+                list.ids = new int[Math.max(size, 2)];
+                list.freqs = new int[Math.max(size, 2)];
+                for (int j = 0; j < size; j++) {
+                    list.ids[j] = in.readInt();
+                    list.freqs[j] = in.readInt();
+                    terms.computeIfAbsent(list.ids[j], k -> new ArrayList<>()).add(term);
+                }
+                list.size = size;
+                index.postings.put(term, list);
+            }
+            for (Map.Entry<Integer, Integer> entry : lengths.entrySet()) {
+                List<String> documentTerms = terms.getOrDefault(entry.getKey(), Collections.emptyList());
+                index.documents.put(entry.getKey(), new Document(documentTerms.toArray(new String[0]), entry.getValue()));
+                index.totalLength += entry.getValue();
+            }
+            return index;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+}
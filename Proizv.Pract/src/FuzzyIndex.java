@@ -0,0 +1,156 @@
+// FuzzyIndex.java - поиск с опечатками по словам текстового поля книги
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Различные слова поля (например, автора) хранятся в префиксном дереве.
+ * Поиск идёт по дереву, вычисляя для каждого узла строку таблицы расстояния
+ * Левенштейна между запросом и префиксом узла (по сути, автомат Левенштейна).
+ * Как только все значения строки превышают допустимое расстояние, поддерево
+ * отбрасывается целиком, поэтому просматривается малая часть словаря.
+ */
+public class FuzzyIndex {
+    private static class Node {
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        // Книги, в поле которых есть слово, заканчивающееся в этом узле
+        PostingList books;
+
+        Node child(char key) {
+            int pos = Arrays.binarySearch(keys, key);
+            return pos >= 0 ? children[pos] : null;
+        }
+
+        Node addChild(char key) {
+            int pos = -Arrays.binarySearch(keys, key) - 1;
+            Node node = new Node();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            System.arraycopy(keys, pos, keys, pos + 1, keys.length - pos - 1);
+            System.arraycopy(children, pos, children, pos + 1, children.length - pos - 1);
+            keys[pos] = key;
+            children[pos] = node;
+            return node;
+        }
+    }
+
+    private final Function<Book, String> field;
+    private final Node root = new Node();
+    private final Map<Integer, List<String>> words = new HashMap<>();
+
+    public FuzzyIndex(Function<Book, String> field) {
+        this.field = field;
+    }
+
+    public void add(int id, Book book) {
+        List<String> bookWords = TextAnalyzer.words(field.apply(book));
+        words.put(id, bookWords);
+        for (String word : bookWords) {
+            Node node = root;
+            for (int i = 0; i < word.length(); i++) {
+                Node child = node.child(word.charAt(i));
+                node = child != null ? child : node.addChild(word.charAt(i));
+            }
+            if (node.books == null) {
+                node.books = new PostingList();
+            }
+            node.books.add(id);
+        }
+    }
+
+    // Узлы удалённых слов остаются в дереве без книг
+    public void remove(int id) {
+        List<String> bookWords = words.remove(id);
+        if (bookWords == null) {
+            return;
+        }
+        for (String word : bookWords) {
+            Node node = root;
+            for (int i = 0; i < word.length() && node != null; i++) {
+                node = node.child(word.charAt(i));
+            }
+            if (node != null && node.books != null) {
+                node.books.remove(id);
+                if (node.books.isEmpty()) {
+                    node.books = null;
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        root.keys = new char[0];
+        root.children = new Node[0];
+        root.books = null;
+        words.clear();
+    }
+
+    /**
+     * Книги, у которых каждому слову запроса нашлось близкое слово поля.
+     * Значение - сумма расстояний по словам запроса.
+     */
+    public Map<Integer, Integer> search(String query) {
+        Map<Integer, Integer> result = null;
+        for (String queryWord : TextAnalyzer.words(query)) {
+            Map<Integer, Integer> matches = new HashMap<>();
+            int[][] rows = new int[queryWord.length() + maxDistance(queryWord) + 1][];
+            rows[0] = new int[queryWord.length() + 1];
+            for (int i = 0; i < rows[0].length; i++) {
+                rows[0][i] = i;
+            }
+            for (int i = 0; i < root.keys.length; i++) {
+                walk(root.children[i], root.keys[i], 1, queryWord, maxDistance(queryWord), rows, matches);
+            }
+
+            if (result == null) {
+                result = matches;
+            } else {
+                result.keySet().retainAll(matches.keySet());
+                result.replaceAll((id, distance) -> distance + matches.get(id));
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result != null ? result : Collections.emptyMap();
+    }
+
+    // Короткие слова ищутся точнее, иначе под запрос подходит почти всё
+    static int maxDistance(String word) {
+        if (word.length() <= 2) {
+            return 0;
+        }
+        return word.length() <= 5 ? 1 : 2;
+    }
+
+    // rows[depth] - расстояния от префиксов запроса до префикса узла длины depth
+    private static void walk(Node node, char key, int depth, String query, int maxDistance,
+                             int[][] rows, Map<Integer, Integer> matches) {
+        int[] previous = rows[depth - 1];
+        int[] row = rows[depth];
+        if (row == null) {
+            row = rows[depth] = new int[previous.length];
+        }
+        row[0] = depth;
+        int rowMin = row[0];
+        for (int i = 1; i < row.length; i++) {
+            int cost = query.charAt(i - 1) == key ? 0 : 1;
+            row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1), previous[i - 1] + cost);
+            rowMin = Math.min(rowMin, row[i]);
+        }
+
+        int distance = row[row.length - 1];
+        if (distance <= maxDistance && node.books != null) {
+            for (int id : node.books.toArray()) {
+                matches.merge(id, distance, Math::min);
+            }
+        }
+        // Слово длиннее запроса больше чем на maxDistance не подойдёт
+        if (rowMin <= maxDistance && depth + 1 < rows.length) {
+            for (int i = 0; i < node.keys.length; i++) {
+                walk(node.children[i], node.keys[i], depth + 1, query, maxDistance, rows, matches);
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+// GenreDictionary.java - словарь жанров с номерами и списками книг
+
+import java.util.*;
+
+/**
+ * Каждому жанру (без учёта регистра) присваивается числовой номер. Для номера
+ * хранятся отображаемое название, список книг и их количество, а названия
+ * жанров, в которых есть книги, держатся отсортированными.
+ */
+public class GenreDictionary {
+    private final Map<String, Integer> idsByKey = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<PostingList> postings = new ArrayList<>();
+    private final TreeSet<String> liveNames = new TreeSet<>();
+
+    // Регистрирует книгу; возвращает общий экземпляр названия жанра
+    public String add(int bookId, String genre) {
+        if (genre == null) {
+            genre = "";
+        }
+        int genreId = idOf(genre);
+        if (genreId < 0) {
+            genreId = names.size();
+            idsByKey.put(key(genre), genreId);
+            names.add(genre);
+            postings.add(new PostingList());
+        }
+        PostingList list = postings.get(genreId);
+        if (list.isEmpty()) {
+            liveNames.add(names.get(genreId));
+        }
+        list.add(bookId);
+        return names.get(genreId);
+    }
+
+    public void remove(int bookId, String genre) {
+        int genreId = idOf(genre);
+        if (genreId < 0) {
+            return;
+        }
+        PostingList list = postings.get(genreId);
+        if (list.remove(bookId) && list.isEmpty()) {
+            liveNames.remove(names.get(genreId));
+        }
+    }
+
+    public void clear() {
+        idsByKey.clear();
+        names.clear();
+        postings.clear();
+        liveNames.clear();
+    }
+
+    // Номер жанра или -1, если такого жанра нет
+    public int idOf(String genre) {
+        Integer id = idsByKey.get(key(genre));
+        return id != null ? id : -1;
+    }
+
+    // Книги жанра (по возрастанию номеров)
+    public int[] booksOf(String genre) {
+        int genreId = idOf(genre);
+        return genreId >= 0 ? postings.get(genreId).toArray() : new int[0];
+    }
+
+    public int count(String genre) {
+        int genreId = idOf(genre);
+        return genreId >= 0 ? postings.get(genreId).size() : 0;
+    }
+
+    // Отсортированные названия жанров, в которых есть книги
+    public List<String> names() {
+        return new ArrayList<>(liveNames);
+    }
+
+    private static String key(String genre) {
+        return genre == null ? "" : genre.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,117 +1,1326 @@
 // Library.java - класс управления библиотекой
 
-import java.io.*;
-import java.time.LocalDate;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+/**
+ * Библиотека допускает одновременную работу многих читающих потоков и одного
+ * пишущего: чтение идёт под общей блокировкой, изменения - под исключительной.
+ * Список всех книг отдаётся неизменяемым снимком, который пересобирается
+ * только после изменения библиотеки.
+ */
 public class Library {
-    private List<Book> books;
+    // Книги по идентификатору; порядок обхода совпадает с порядком добавления
+    private final Map<Integer, Book> books = new LinkedHashMap<>();
+    private int nextId = 1;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Номер версии растёт при каждом изменении; снимок null, пока не запрошен
+    private long version;
+    private volatile List<Book> snapshot;
+    // Изменения текущего пакета; null вне пакетной операции
+    private List<BatchChange> batch;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean changePending = new AtomicBoolean(false);
     private static final String DATA_FILE = "library_data.dat";
+    private static final String JOURNAL_FILE = "library_data.journal";
+    private static final String FULLTEXT_FILE = "library_data.fts";
+    private static final String LOCK_FILE = "library_data.lock";
+    // Размер журнала, после которого он сворачивается в новый снимок
+    private static final long JOURNAL_COMPACT_THRESHOLD = 4L * 1024 * 1024;
+
+    // Папка и файлы библиотеки: снимок, журнал и полнотекстовый индекс
+    private final Path directory;
+    private final Path dataFile;
+    private final Path fullTextFile;
+    private final LibraryJournal journal;
+    // Канал файла блокировки: пока он открыт, папку библиотеки не откроет другой процесс
+    private final FileChannel directoryLock;
+    // Описания читаются из файла по требованию, а не загружаются при старте
+    private final boolean lazyDescriptions;
+    // Источник отложенных описаний; null, если описания загружены сразу
+    private DescriptionStore descriptions;
+    // Индексы по подстроке и с опечатками строятся при первом поиске (см. prepareSearch)
+    private TrigramIndex titleIndex;
+    private TrigramIndex authorIndex;
+    private FuzzyIndex titleFuzzy;
+    private FuzzyIndex authorFuzzy;
+    private volatile boolean textIndexed;
+    // Книги, изменённые, пока индекс строится вне блокировки (null - построение не идёт)
+    private Set<Integer> textChanges;
+    private Set<Integer> fullTextChanges;
+    // Построением каждого индекса занят один поток, остальные ждут его без блокировки библиотеки
+    private final Object textBuild = new Object();
+    private final Object fullTextBuild = new Object();
+    private final GenreDictionary genres = new GenreDictionary();
+    private final RangeIndex dateIndex = new RangeIndex(book ->
+            book.getEpochDay() != BookColumns.NULL_DATE ? book.getEpochDay() : Double.NaN);
+    private final RangeIndex ratingIndex = new RangeIndex(Book::getRating);
+    private final RangeIndex pagesIndex = new RangeIndex(Book::getPages);
+    // Числовые поля книг в массивах примитивов - для фильтров и сортировок без обхода объектов
+    private final BookColumns columns = new BookColumns();
+    // Отсортированные списки книг для таблицы; создаются по первому запросу порядка
+    private final Map<BookOrder, BookOrderIndex> orders = new EnumMap<>(BookOrder.class);
+    // Условие проверяется на кандидатах, если их во столько раз меньше, чем книг по индексу условия
+    private static final int VERIFY_RATIO = 4;
+    // Полнотекстовый индекс загружается или строится при первом поиске по описанию (null - ещё нет)
+    private volatile FullTextIndex fullText;
+    // Подходит ли сохранённый индекс к загруженным данным и какие книги в нём устарели
+    private boolean savedTextUsable;
+    private Set<Integer> staleTextIds = new HashSet<>();
+    // Книги по хэшу содержимого и по пути к файлу - для поиска дубликатов при импорте
+    private final Map<String, Integer> idsByHash = new HashMap<>();
+    // Книги по пути к файлу: каталог -> имя файла -> идентификатор
+    private final Map<String, Map<String, Integer>> idsByPath = new HashMap<>();
+    // Общие экземпляры имён авторов и каталогов файлов
+    private final StringPool strings = new StringPool();
+    // Статистика поддерживается при каждом изменении
+    private long totalPages;
+    private double ratingSum;
+
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "library-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     public Library(){
-        books = new ArrayList<>();
+        this(Boolean.getBoolean("library.lazyDescriptions"));
+    }
+
+    public Library(boolean lazyDescriptions) {
+        this(Paths.get(""), lazyDescriptions);
+    }
+
+    /*
+     * Библиотека, файлы которой лежат в указанной папке. Если папку уже
+     * открыл другой процесс (например, графический интерфейс и утилита
+     * командной строки), бросается UncheckedIOException: два процесса,
+     * дописывающие один журнал, испортили бы его.
+     */
+    public Library(Path directory, boolean lazyDescriptions) {
+        this.lazyDescriptions = lazyDescriptions;
+        this.directory = directory;
+        directoryLock = lockDirectory(directory);
+        dataFile = directory.resolve(DATA_FILE);
+        fullTextFile = directory.resolve(FULLTEXT_FILE);
+        journal = new LibraryJournal(directory.resolve(JOURNAL_FILE).toString());
         loadFromFile();
+        shareLoadedStrings();
+        for (Book book : books.values()) {
+            indexBook(book);
+        }
     }
 
-    //Добавление книги
+    //Добавление книги (книге присваивается новый идентификатор)
     public void addBook(Book book) {
-        books.add(book);
-        saveToFile();
+        lock.writeLock().lock();
+        try {
+            book.setId(nextId++);
+            books.put(book.getId(), book);
+            indexBook(book);
+            changed();
+            persist(LibraryJournal.OP_ADD, book.getId(), book, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyChanged();
     }
 
-    // Обновление книги
-    public void updateBook(int index, Book book) {
-        if (index >= 0 && index < books.size()) {
-            books.set(index, book);
-            saveToFile();
+    // Добавление книги, если в библиотеке нет файла с тем же содержимым
+    public boolean addBookIfUnique(Book book) {
+        lock.writeLock().lock();
+        try {
+            if (book.getContentHash() != null && idsByHash.containsKey(book.getContentHash())) {
+                return false;
+            }
+            addBook(book);
+        } finally {
+            lock.writeLock().unlock();
         }
+        notifyChanged();
+        return true;
+    }
+
+    // Что сделал importBook с книгой
+    public enum ImportResult { ADDED, UPDATED, UNCHANGED, DUPLICATE }
+
+    /*
+     * Книга, прочитанная из файла. Если файл уже в библиотеке, книга заменяет
+     * прежнюю версию, но только когда изменилось содержимое файла: повторное
+     * чтение того же файла не затирает правки пользователя. Книга без хэша
+     * (введённая вручную) только получает хэш файла, её поля не меняются.
+     * Новый файл добавляется, если в библиотеке нет файла с тем же содержимым.
+     */
+    public ImportResult importBook(Book book) {
+        ImportResult result;
+        lock.writeLock().lock();
+        try {
+            Integer id = idOfFile(book.getFilePath());
+            Book previous = id != null ? books.get(id) : null;
+            if (id == null) {
+                result = addBookIfUnique(book) ? ImportResult.ADDED : ImportResult.DUPLICATE;
+            } else if (book.getContentHash() == null || book.getContentHash().equals(previous.getContentHash())) {
+                result = ImportResult.UNCHANGED;
+            } else if (previous.getContentHash() == null) {
+                updateBook(id, withContentHash(previous, book.getContentHash()));
+                result = ImportResult.UNCHANGED;
+            } else {
+                updateBook(id, book);
+                result = ImportResult.UPDATED;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyChanged();
+        return result;
+    }
+
+    /*
+     * Обновление книги: новая версия получает идентификатор прежней. Диалог
+     * и HTTP API собирают книгу заново, без хэша содержимого; если файл тот же,
+     * хэш переносится из прежней версии, иначе книга выпала бы из поиска дубликатов.
+     */
+    public boolean updateBook(int id, Book book) {
+        lock.writeLock().lock();
+        try {
+            Book previous = books.get(id);
+            if (previous == null) {
+                return false;
+            }
+            if (book.getContentHash() == null && Objects.equals(book.getFilePath(), previous.getFilePath())) {
+                book.setContentHash(previous.getContentHash());
+            }
+            unindexBook(previous);
+            book.setId(id);
+            books.put(id, book);
+            indexBook(book);
+            changed();
+            persist(LibraryJournal.OP_UPDATE, id, book, previous);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyChanged();
+        return true;
+    }
+
+    // Копия книги с другим хэшем содержимого
+    private static Book withContentHash(Book book, String contentHash) {
+        Book copy = new Book(book.getTitle(), book.getAuthor(), book.getGenre(), book.getPublicationDate(),
+                book.getFilePath(), book.getPages(), book.getRating(), book.getDescription());
+        copy.setContentHash(contentHash);
+        return copy;
     }
 
     // Удаление книги
     public boolean removeBook(Book book) {
-        boolean removed = books.remove(book);
-        if (removed) {
-            saveToFile();
+        boolean removed;
+        lock.writeLock().lock();
+        try {
+            removed = books.get(book.getId()) == book && removeBook(book.getId());
+        } finally {
+            lock.writeLock().unlock();
         }
+        notifyChanged();
         return removed;
     }
 
-    // Удаление книги по индексу
-    public boolean removeBook(int index) {
-        if (index >= 0 && index < books.size()) {
-            books.remove(index);
-            saveToFile();
-            return true;
+    // Удаление книги по идентификатору
+    public boolean removeBook(int id) {
+        lock.writeLock().lock();
+        try {
+            Book removed = books.remove(id);
+            if (removed == null) {
+                return false;
+            }
+            unindexBook(removed);
+            changed();
+            persist(LibraryJournal.OP_REMOVE, id, null, removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyChanged();
+        return true;
+    }
+
+    // Изменения пакета; внутри можно вызывать любые изменяющие методы, в том числе addBooks и batch
+    @FunctionalInterface
+    public interface Changes {
+        void apply(Library library) throws IOException;
+    }
+
+    // Добавление нескольких книг одной операцией
+    public void addBooks(Collection<Book> newBooks) throws IOException {
+        batch(library -> {
+            for (Book book : newBooks) {
+                library.addBook(book);
+            }
+        });
+    }
+
+    // Удаление нескольких книг по идентификаторам одной операцией
+    public void removeBooks(Collection<Integer> ids) throws IOException {
+        batch(library -> {
+            for (int id : ids) {
+                library.removeBook(id);
+            }
+        });
+    }
+
+    /**
+     * Пакетное изменение: все изменения, сделанные в changes, применяются в
+     * памяти, записываются в журнал одной записью и дают одно уведомление.
+     * Если блок завершился ошибкой, библиотека возвращается в исходное
+     * состояние, а ошибка пробрасывается дальше. Вложенный пакет становится
+     * частью внешнего.
+     * Метод возвращается после записи пакета на диск, но ждёт её уже после
+     * снятия блокировки, поэтому читатели в это время не ждут диска. Если
+     * запись не удалась, пакет откатывается и в памяти, кроме книг, которые
+     * после него успели изменить другие операции, и ошибка пробрасывается.
+     */
+    public void batch(Changes changes) throws IOException {
+        CompletableFuture<Void> written = null;
+        List<BatchChange> applied;
+        int savedNextId;
+        int appliedNextId;
+        lock.writeLock().lock();
+        try {
+            if (batch != null) {
+                changes.apply(this);
+                return;
+            }
+            batch = new ArrayList<>();
+            applied = batch;
+            savedNextId = nextId;
+            try {
+                changes.apply(this);
+                if (!batch.isEmpty()) {
+                    List<LibraryJournal.Entry> entries = new ArrayList<>(batch.size());
+                    for (BatchChange change : batch) {
+                        entries.add(change.entry);
+                    }
+                    written = journal.logBatch(entries);
+                }
+            } catch (IOException | RuntimeException e) {
+                rollback(batch);
+                nextId = savedNextId;
+                changed();
+                throw e;
+            } finally {
+                batch = null;
+                flushOrders();
+            }
+            appliedNextId = nextId;
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyChanged();
+        if (written != null) {
+            try {
+                await(written);
+            } catch (IOException | RuntimeException e) {
+                rollbackUnwritten(applied, savedNextId, appliedNextId);
+                throw e;
+            }
+        }
+    }
+
+    // Откат пакета, который не удалось записать в журнал
+    private void rollbackUnwritten(List<BatchChange> changes, int savedNextId, int appliedNextId) {
+        lock.writeLock().lock();
+        try {
+            rollback(changes);
+            // Идентификаторы возвращаются, только если после пакета новых книг не было
+            if (nextId == appliedNextId) {
+                nextId = savedNextId;
+            }
+            changed();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyChanged();
+    }
+
+    // Future, завершающийся, когда все уже сделанные изменения записаны на диск
+    public CompletableFuture<Void> sync() {
+        return journal.sync();
+    }
+
+    /*
+     * Дожидается начатого сжатия и записи журнала и сохраняет полнотекстовый
+     * индекс, если он был построен; вызывается при завершении приложения. Непостроенный
+     * индекс не строится: прежний сохранённый файл остаётся годным, пока
+     * журнал после него не сжат, и при загрузке дополняется изменёнными книгами.
+     */
+    public void close() {
+        // Снимок дописывается, пока журнал, описания и блокировка папки ещё открыты
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+        lock.readLock().lock();
+        try {
+            if (fullText != null) {
+                fullText.save(fullTextFile, journal.lastSeq());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            if (descriptions != null) {
+                descriptions.close();
+            }
+            directoryLock.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Исключительная блокировка файла в папке библиотеки; снимается при закрытии канала
+    private static FileChannel lockDirectory(Path directory) {
+        Path file = directory.resolve(LOCK_FILE);
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть файл блокировки " + file, e);
+        }
+        FileLock acquired = null;
+        try {
+            acquired = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Папку уже открыла другая библиотека в этом же процессе
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new UncheckedIOException("Не удалось заблокировать папку библиотеки " + file, e);
+        }
+        if (acquired == null) {
+            closeQuietly(channel);
+            IOException locked = new IOException("Библиотека в папке "
+                    + directory.toAbsolutePath().normalize() + " уже открыта другим процессом");
+            throw new UncheckedIOException(locked.getMessage(), locked);
+        }
+        return channel;
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Блокировка снимается и при ошибке закрытия
         }
-        return false;
+    }
+
+    // Папка с файлами библиотеки; рядом с ними хранится и кэш метаданных импорта
+    public Path getDirectory() {
+        return directory;
+    }
+
+    // Слушатель вызывается в потоке, изменившем библиотеку, после снятия блокировки
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(Runnable listener) {
+        changeListeners.remove(listener);
     }
 
     // Поиск книг по названию
     public List<Book> searchByTitle(String title) {
-        return books.stream()
-                .filter(book -> book.getTitle().toLowerCase().contains(title.toLowerCase()))
-                .collect(Collectors.toList());
+        ensureTextIndexes();
+        lock.readLock().lock();
+        try {
+            return booksByIds(titleIndex.search(title));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     // Поиск книг по автору
     public List<Book> searchByAuthor(String author) {
-        return books.stream()
-                .filter(book -> book.getAuthor().toLowerCase().contains(author.toLowerCase()))
-                .collect(Collectors.toList());
+        ensureTextIndexes();
+        lock.readLock().lock();
+        try {
+            return booksByIds(authorIndex.search(author));
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
     // Поиск книг по жанру
     public List<Book> searchByGenre(String genre) {
-        return books.stream()
-                .filter(book -> book.getGenre().equalsIgnoreCase(genre))
-                .collect(Collectors.toList());
+        lock.readLock().lock();
+        try {
+            return booksByIds(genres.booksOf(genre));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Поиск по нескольким условиям. Для каждого условия оценивается число
+     * подходящих книг по его индексу; первым берётся самое избирательное.
+     * Следующие условия либо пересекаются со списком кандидатов по своему
+     * индексу, либо, если кандидатов уже намного меньше, проверяются на самих
+     * книгах-кандидатах.
+     */
+    public List<Book> query(BookQuery query) {
+        prepareQuery(query);
+        lock.readLock().lock();
+        try {
+            List<QueryStep> steps = planQuery(query);
+            if (steps.isEmpty()) {
+                return new ArrayList<>(books.values());
+            }
+            int[] candidates = steps.get(0).ids.get();
+            for (int i = 1; i < steps.size() && candidates.length > 0; i++) {
+                QueryStep step = steps.get(i);
+                if ((long) candidates.length * VERIFY_RATIO < step.estimate) {
+                    int count = 0;
+                    for (int id : candidates) {
+                        if (step.test.test(id)) {
+                            candidates[count++] = id;
+                        }
+                    }
+                    candidates = Arrays.copyOf(candidates, count);
+                } else {
+                    candidates = PostingList.intersect(candidates, step.ids.get());
+                }
+            }
+            return booksByIds(candidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Страница результата запроса: не больше limit книг с идентификаторами
+     * больше afterId, по возрастанию идентификаторов. Кандидаты берутся из
+     * индекса самого избирательного условия, начиная с afterId; остальные
+     * условия проверяются на кандидатах, пока страница не наполнится.
+     */
+    public List<Book> query(BookQuery query, int afterId, int limit) {
+        prepareQuery(query);
+        lock.readLock().lock();
+        try {
+            List<QueryStep> steps = planQuery(query);
+            int[] candidates = steps.isEmpty() ? null : steps.get(0).ids.get();
+            List<Book> page = new ArrayList<>(Math.min(limit, 1024));
+            if (candidates == null) {
+                for (int id = afterId + 1; id < nextId && page.size() < limit; id++) {
+                    Book book = books.get(id);
+                    if (book != null) {
+                        page.add(book);
+                    }
+                }
+                return page;
+            }
+            int start = Arrays.binarySearch(candidates, afterId);
+            start = start >= 0 ? start + 1 : -start - 1;
+            for (int i = start; i < candidates.length && page.size() < limit; i++) {
+                int id = candidates[i];
+                boolean matches = true;
+                for (int s = 1; s < steps.size() && matches; s++) {
+                    matches = steps.get(s).test.test(id);
+                }
+                if (matches) {
+                    page.add(books.get(id));
+                }
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Поиск с опечатками по автору и названию: сначала ближайшие совпадения, при равенстве - с большим рейтингом
+    public List<Book> searchFuzzy(String query) {
+        ensureTextIndexes();
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> distances = new HashMap<>(authorFuzzy.search(query));
+            titleFuzzy.search(query).forEach((id, distance) -> distances.merge(id, distance, Math::min));
+            List<Book> result = new ArrayList<>(distances.size());
+            for (int id : distances.keySet()) {
+                result.add(books.get(id));
+            }
+            result.sort(Comparator.comparingInt((Book book) -> distances.get(book.getId()))
+                    .thenComparing(Comparator.comparingDouble(Book::getRating).reversed()));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Полнотекстовый поиск по названиям и описаниям: не более limit книг, лучшие первыми
+    public List<Book> searchFullText(String query, int limit) {
+        ensureFullText();
+        lock.readLock().lock();
+        try {
+            int[] ids = fullText.search(query, limit);
+            List<Book> result = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                Book book = books.get(id);
+                if (book != null) {
+                    result.add(book);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    // Получение всех книг
+    // Получение всех книг (неизменяемый снимок, общий для всех читателей до следующего изменения)
     public List<Book> getAllBooks() {
-        return new ArrayList<>(books);
+        List<Book> current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        lock.readLock().lock();
+        try {
+            current = snapshot;
+            if (current == null) {
+                current = Collections.unmodifiableList(new ArrayList<>(books.values()));
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Все книги в заданном порядке. Порядок строится при первом запросе и
+     * дальше поддерживается при изменениях; список общий и не копируется.
+     */
+    public List<Book> getAllBooks(BookOrder order) {
+        lock.readLock().lock();
+        try {
+            BookOrderIndex index = orders.get(order);
+            if (index != null) {
+                return index.books();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            BookOrderIndex index = orders.get(order);
+            if (index == null) {
+                index = new BookOrderIndex(order.comparator(), presorted(order));
+                orders.put(order, index);
+            }
+            return index.books();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Книги для нового порядка: по дате и страницам сортируются столбцы примитивов
+    private Book[] presorted(BookOrder order) {
+        int[] ids;
+        if (order == BookOrder.DATE) {
+            ids = columns.idsByDate();
+        } else if (order == BookOrder.PAGES) {
+            ids = columns.idsByPages();
+        } else {
+            Book[] result = books.values().toArray(new Book[0]);
+            Arrays.parallelSort(result, order.comparator());
+            return result;
+        }
+        Book[] result = new Book[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = books.get(ids[i]);
+        }
+        return result;
+    }
+
+    // Получение книги по идентификатору
+    public Book getBook(int id) {
+        lock.readLock().lock();
+        try {
+            return books.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Книга с тем же содержимым файла или null
+    public Book findByContentHash(String hash) {
+        lock.readLock().lock();
+        try {
+            Integer id = idsByHash.get(hash);
+            return id != null ? books.get(id) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Есть ли в библиотеке книга с этим файлом (по абсолютному пути)
+    public boolean containsFile(String path) {
+        lock.readLock().lock();
+        try {
+            return idOfFile(path) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Книга с этим файлом или null; вызывается под блокировкой
+    private Integer idOfFile(String path) {
+        if (path == null) {
+            return null;
+        }
+        int separator = Book.separatorIndex(path);
+        Map<String, Integer> files = idsByPath.get(separator >= 0 ? path.substring(0, separator + 1) : null);
+        return files != null ? files.get(path.substring(separator + 1)) : null;
+    }
+
+    // Номер версии библиотеки; меняется при каждом изменении
+    public long getVersion() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Вызывается под блокировкой записи после каждого изменения
+    private void changed() {
+        version++;
+        snapshot = null;
+        changePending.set(true);
+        // Внутри пакета порядки обновляются один раз в конце
+        if (batch == null) {
+            flushOrders();
+        }
+    }
+
+    private void flushOrders() {
+        for (BookOrderIndex order : orders.values()) {
+            order.flush();
+        }
+    }
+
+    // Уведомление слушателей после выхода из внешней операции (не внутри пакета)
+    private void notifyChanged() {
+        if (lock.isWriteLockedByCurrentThread() || !changePending.getAndSet(false)) {
+            return;
+        }
+        for (Runnable listener : changeListeners) {
+            listener.run();
+        }
+    }
+
+    // Условие запроса: оценка числа книг, выборка по индексу и проверка книги
+    private static class QueryStep {
+        final int estimate;
+        final Supplier<int[]> ids;
+        final IntPredicate test;
+
+        QueryStep(int estimate, Supplier<int[]> ids, IntPredicate test) {
+            this.estimate = estimate;
+            this.ids = ids;
+            this.test = test;
+        }
     }
 
-    // Получение книги по индексу
-    public Book getBook(int index) {
-        if (index >= 0 && index < books.size()) {
-            return books.get(index);
+    // Условиям по названию и автору нужны индексы по подстроке; строятся до блокировки чтения
+    private void prepareQuery(BookQuery query) {
+        if (query.hasTitle() || query.hasAuthor()) {
+            ensureTextIndexes();
+        }
+    }
+
+    // Условия запроса по возрастанию оценки числа подходящих книг
+    private List<QueryStep> planQuery(BookQuery query) {
+        List<QueryStep> steps = new ArrayList<>();
+        if (query.hasTitle()) {
+            steps.add(new QueryStep(titleIndex.estimate(query.getTitle()),
+                    () -> titleIndex.search(query.getTitle()), id -> query.matchesTitle(books.get(id))));
+        }
+        if (query.hasAuthor()) {
+            steps.add(new QueryStep(authorIndex.estimate(query.getAuthor()),
+                    () -> authorIndex.search(query.getAuthor()), id -> query.matchesAuthor(books.get(id))));
+        }
+        // Числовые условия и жанр проверяются по столбцам, без обращения к книгам
+        if (query.hasGenre()) {
+            int genreId = genres.idOf(query.getGenre());
+            steps.add(new QueryStep(genres.count(query.getGenre()),
+                    () -> genres.booksOf(query.getGenre()), id -> columns.genreId(id) == genreId));
+        }
+        if (query.hasDateRange()) {
+            int from = query.getPublishedFrom() != null ? (int) query.getPublishedFrom().toEpochDay() : BookColumns.NULL_DATE + 1;
+            int to = query.getPublishedTo() != null ? (int) query.getPublishedTo().toEpochDay() : Integer.MAX_VALUE;
+            steps.add(new QueryStep(dateIndex.count(from, to), () -> dateIndex.search(from, to), id -> {
+                int day = columns.epochDay(id);
+                return day >= from && day <= to;
+            }));
+        }
+        if (query.hasRatingRange()) {
+            double from = query.getMinRating() != null ? query.getMinRating() : Double.NEGATIVE_INFINITY;
+            double to = query.getMaxRating() != null ? query.getMaxRating() : Double.POSITIVE_INFINITY;
+            steps.add(new QueryStep(ratingIndex.count(from, to), () -> ratingIndex.search(from, to), id -> {
+                double rating = columns.rating(id);
+                return rating >= from && rating <= to;
+            }));
+        }
+        if (query.hasPagesRange()) {
+            int from = query.getMinPages() != null ? query.getMinPages() : Integer.MIN_VALUE;
+            int to = query.getMaxPages() != null ? query.getMaxPages() : Integer.MAX_VALUE;
+            steps.add(new QueryStep(pagesIndex.count(from, to), () -> pagesIndex.search(from, to), id -> {
+                int pages = columns.pages(id);
+                return pages >= from && pages <= to;
+            }));
+        }
+        steps.sort(Comparator.comparingInt(step -> step.estimate));
+        return steps;
+    }
+
+    // Изменение внутри пакета с прежней версией книги для отката
+    private static class BatchChange {
+        final LibraryJournal.Entry entry;
+        final Book previous;
+
+        BatchChange(LibraryJournal.Entry entry, Book previous) {
+            this.entry = entry;
+            this.previous = previous;
         }
-        return null;
     }
 
-    // Сохранение в файл
-    private void saveToFile() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(DATA_FILE))) {
-            oos.writeObject(books);
+    // Запись изменения в журнал; внутри пакета изменение откладывается до конца пакета
+    private void persist(byte op, int id, Book book, Book previous) {
+        if (batch != null) {
+            batch.add(new BatchChange(new LibraryJournal.Entry(op, 0, id, book), previous));
+            return;
+        }
+        try {
+            switch (op) {
+                case LibraryJournal.OP_ADD:
+                    journal.logAdd(book);
+                    break;
+                case LibraryJournal.OP_UPDATE:
+                    journal.logUpdate(book);
+                    break;
+                case LibraryJournal.OP_REMOVE:
+                    journal.logRemove(id);
+                    break;
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
+        compactIfNeeded();
+    }
+
+    /*
+     * Отмена изменений пакета в обратном порядке. Изменение отменяется, только
+     * если под идентификатором всё ещё книга, оставленная пакетом: более
+     * позднюю операцию над той же книгой откат не затирает.
+     */
+    private void rollback(List<BatchChange> changes) {
+        boolean restoredRemoved = false;
+        for (int i = changes.size() - 1; i >= 0; i--) {
+            BatchChange change = changes.get(i);
+            int id = change.entry.id;
+            Book current = books.get(id);
+            if (current != change.entry.book) {
+                continue;
+            }
+            if (current != null) {
+                unindexBook(current);
+                if (change.previous == null) {
+                    books.remove(id);
+                }
+            }
+            if (change.previous != null) {
+                books.put(id, change.previous);
+                indexBook(change.previous);
+                restoredRemoved |= current == null;
+            }
+        }
+        if (restoredRemoved) {
+            // Возвращённые книги попали в конец; порядок обхода должен совпадать с порядком идентификаторов
+            List<Book> ordered = new ArrayList<>(books.values());
+            ordered.sort(Comparator.comparingInt(Book::getId));
+            books.clear();
+            for (Book book : ordered) {
+                books.put(book.getId(), book);
+            }
+        }
+    }
+
+    // Построение индексов поиска заранее, чтобы первый поиск не ждал их
+    public void prepareSearch() {
+        ensureTextIndexes();
+        ensureFullText();
+    }
+
+    /*
+     * Индексы поиска строятся по неизменяемому снимку без блокировки, поэтому
+     * изменения библиотеки во время построения не ждут; книги, изменённые за
+     * это время, запоминаются и переиндексируются при публикации индекса под
+     * короткой блокировкой записи. Вызывается без блокировки чтения: поток,
+     * держащий её, не смог бы опубликовать индекс.
+     */
+    private void ensureTextIndexes() {
+        if (textIndexed) {
+            return;
+        }
+        // Поток внутри пакета держит блокировку записи и не может ждать другой строящий поток
+        if (lock.isWriteLockedByCurrentThread()) {
+            buildTextIndexes();
+            return;
+        }
+        synchronized (textBuild) {
+            buildTextIndexes();
+        }
+    }
+
+    private void buildTextIndexes() {
+        List<Book> snapshot;
+        Set<Integer> changes = new HashSet<>();
+        lock.writeLock().lock();
+        try {
+            if (textIndexed) {
+                return;
+            }
+            snapshot = getAllBooks();
+            textChanges = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        TrigramIndex title = new TrigramIndex(Book::getTitle);
+        TrigramIndex author = new TrigramIndex(Book::getAuthor);
+        FuzzyIndex fuzzyTitle = new FuzzyIndex(Book::getTitle);
+        FuzzyIndex fuzzyAuthor = new FuzzyIndex(Book::getAuthor);
+        for (Book book : snapshot) {
+            title.add(book.getId(), book);
+            author.add(book.getId(), book);
+            fuzzyTitle.add(book.getId(), book);
+            fuzzyAuthor.add(book.getId(), book);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (textIndexed) {
+                return;
+            }
+            titleIndex = title;
+            authorIndex = author;
+            titleFuzzy = fuzzyTitle;
+            authorFuzzy = fuzzyAuthor;
+            for (int id : changes) {
+                removeTextIndexes(id);
+                Book book = books.get(id);
+                if (book != null) {
+                    addTextIndexes(id, book);
+                }
+            }
+            textChanges = null;
+            textIndexed = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Загрузка сохранённого полнотекстового индекса с переиндексацией изменённых книг или построение заново
+    private void ensureFullText() {
+        if (fullText != null) {
+            return;
+        }
+        if (lock.isWriteLockedByCurrentThread()) {
+            buildFullText();
+            return;
+        }
+        synchronized (fullTextBuild) {
+            buildFullText();
+        }
+    }
+
+    private void buildFullText() {
+        List<Book> snapshot;
+        Set<Integer> stale;
+        Set<Integer> changes = new HashSet<>();
+        lock.writeLock().lock();
+        try {
+            if (fullText != null) {
+                return;
+            }
+            snapshot = getAllBooks();
+            stale = new HashSet<>(staleTextIds);
+            fullTextChanges = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Описания при отложенной загрузке читаются с диска, поэтому построение идёт без блокировки
+        FullTextIndex index = savedTextUsable ? FullTextIndex.load(fullTextFile) : null;
+        if (index != null) {
+            for (int id : stale) {
+                index.remove(id);
+            }
+        } else {
+            index = new FullTextIndex();
+        }
+        for (Book book : snapshot) {
+            index.add(book.getId(), book);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (fullText != null) {
+                return;
+            }
+            for (int id : changes) {
+                index.remove(id);
+                Book book = books.get(id);
+                if (book != null) {
+                    index.add(id, book);
+                }
+            }
+            staleTextIds.clear();
+            fullTextChanges = null;
+            fullText = index;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addTextIndexes(int id, Book book) {
+        titleIndex.add(id, book);
+        authorIndex.add(id, book);
+        titleFuzzy.add(id, book);
+        authorFuzzy.add(id, book);
+    }
+
+    private void removeTextIndexes(int id) {
+        titleIndex.remove(id);
+        authorIndex.remove(id);
+        titleFuzzy.remove(id);
+        authorFuzzy.remove(id);
     }
 
-    // Загрузка из файла
-    @SuppressWarnings("unchecked")
+    private void indexBook(Book book) {
+        int id = book.getId();
+        if (textIndexed) {
+            addTextIndexes(id, book);
+        } else if (textChanges != null) {
+            textChanges.add(id);
+        }
+        if (fullText != null) {
+            fullText.add(id, book);
+        } else if (fullTextChanges != null) {
+            fullTextChanges.add(id);
+        }
+        dateIndex.add(id, book);
+        ratingIndex.add(id, book);
+        pagesIndex.add(id, book);
+        for (BookOrderIndex order : orders.values()) {
+            order.add(book);
+        }
+        // Книги одного жанра ссылаются на один экземпляр строки
+        String genre = genres.add(id, book.getGenre());
+        if (genre.equals(book.getGenre())) {
+            book.setGenre(genre);
+        }
+        shareStrings(book);
+        columns.add(book, genres.idOf(genre));
+        if (book.getContentHash() != null) {
+            idsByHash.putIfAbsent(book.getContentHash(), id);
+        }
+        if (book.getFileName() != null && !book.getFileName().isEmpty()) {
+            idsByPath.computeIfAbsent(book.getDirectory(), k -> new HashMap<>())
+                    .putIfAbsent(book.getFileName(), id);
+        }
+        totalPages += book.getPages();
+        ratingSum += book.getRating();
+    }
+
+    // Автор и каталог файла заменяются общими экземплярами строк
+    private void shareStrings(Book book) {
+        book.setAuthor(strings.intern(book.getAuthor()));
+        book.shareDirectory(strings.intern(book.getDirectory()));
+    }
+
+    /*
+     * После загрузки каждая книга держит собственные копии строк, прочитанных
+     * из файла. Проход заменяет их общими экземплярами; с -Dlibrary.memoryReport=true
+     * в stderr выводится занятая память до и после него.
+     */
+    private void shareLoadedStrings() {
+        boolean report = Boolean.getBoolean("library.memoryReport");
+        long before = report ? usedMemory() : 0;
+        for (Book book : books.values()) {
+            shareStrings(book);
+        }
+        if (report) {
+            long after = usedMemory();
+            System.err.printf("Строки книг: %d книг, %d общих строк; память %d КБ -> %d КБ (освобождено %d КБ)%n",
+                    books.size(), strings.size(), before / 1024, after / 1024, (before - after) / 1024);
+        }
+    }
+
+    // Занятая память после сборки мусора; сборка повторяется, пока освобождается память
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            long current = runtime.totalMemory() - runtime.freeMemory();
+            if (current >= used) {
+                break;
+            }
+            used = current;
+        }
+        return used;
+    }
+
+    private void unindexBook(Book book) {
+        int id = book.getId();
+        if (textIndexed) {
+            removeTextIndexes(id);
+        } else if (textChanges != null) {
+            textChanges.add(id);
+        }
+        if (fullText != null) {
+            fullText.remove(id);
+        } else {
+            staleTextIds.add(id);
+            if (fullTextChanges != null) {
+                fullTextChanges.add(id);
+            }
+        }
+        dateIndex.remove(id, book);
+        ratingIndex.remove(id, book);
+        pagesIndex.remove(id, book);
+        columns.remove(book);
+        for (BookOrderIndex order : orders.values()) {
+            order.remove(book);
+        }
+        genres.remove(id, book.getGenre());
+        if (book.getContentHash() != null) {
+            idsByHash.remove(book.getContentHash(), id);
+        }
+        Map<String, Integer> files = idsByPath.get(book.getDirectory());
+        if (files != null && files.remove(book.getFileName(), id) && files.isEmpty()) {
+            idsByPath.remove(book.getDirectory());
+        }
+        totalPages -= book.getPages();
+        ratingSum -= book.getRating();
+    }
+
+    // Идентификаторы возрастают в порядке добавления, поэтому результат идёт в порядке библиотеки
+    private List<Book> booksByIds(int[] ids) {
+        List<Book> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            result.add(books.get(id));
+        }
+        return result;
+    }
+
+    // Сворачивание журнала в новый снимок в фоновом потоке
+    private void compactIfNeeded() {
+        if (journal.size() < JOURNAL_COMPACT_THRESHOLD || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        List<Book> snapshot = new ArrayList<>(books.values());
+        long seq = journal.lastSeq();
+        // Снимок пишется, только если все вошедшие в него изменения записаны в журнал
+        CompletableFuture<Void> logged = journal.sync();
+        CompletableFuture<Void> rotated = journal.rotate();
+        compactor.execute(() -> {
+            try {
+                await(logged);
+                await(rotated);
+                saveToFile(snapshot, seq);
+                journal.discardRotated();
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                compacting.set(false);
+            }
+        });
+    }
+
+    // Сохранение снимка в файл (через временный файл, чтобы не испортить предыдущий)
+    private void saveToFile(List<Book> snapshot, long seq) throws IOException {
+        Path target = dataFile;
+        Path temp = Paths.get(dataFile + ".tmp");
+        int[] offsets = LibraryFileFormat.write(temp, snapshot, seq);
+        if (descriptions != null) {
+            // Отложенные описания книг дальше читаются из нового файла по тем же номерам
+            int[] moved = new int[descriptions.size()];
+            Arrays.fill(moved, -1);
+            for (int i = 0; i < snapshot.size(); i++) {
+                int index = snapshot.get(i).lazyDescriptionIndex(descriptions);
+                if (index >= 0) {
+                    moved[index] = offsets[i];
+                }
+            }
+            descriptions.replaceFile(temp, moved);
+        } else {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        // Переименование становится надёжным после сброса каталога на диск
+        try (FileChannel dir = FileChannel.open(target.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Не все системы позволяют открыть каталог (например, Windows)
+        }
+    }
+
+    // Ожидание записи журнала с пробросом исходной ошибки ввода-вывода
+    private static void await(CompletableFuture<Void> write) throws IOException {
+        try {
+            write.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    // Загрузка из файла: снимок + воспроизведение журнала
     private void loadFromFile() {
-        File file = new File(DATA_FILE);
-        if (file.exists()) {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(DATA_FILE))) {
-                books = (List<Book>) ois.readObject();
-            } catch (IOException | ClassNotFoundException e) {
+        long snapshotSeq = 0;
+        Path file = dataFile;
+        LibraryFileFormat.Snapshot snapshot = null;
+        if (Files.exists(file)) {
+            try {
+                snapshot = LibraryFileFormat.isLegacyFormat(file)
+                        ? LibraryFileFormat.readLegacy(file)
+                        : LibraryFileFormat.read(file, lazyDescriptions);
+                for (Book book : snapshot.books) {
+                    // Книги из файлов старых версий получают идентификаторы по порядку
+                    if (book.getId() <= 0) {
+                        book.setId(nextId);
+                    }
+                    nextId = Math.max(nextId, book.getId() + 1);
+                    books.put(book.getId(), book);
+                }
+                snapshotSeq = snapshot.seq;
+                descriptions = snapshot.descriptions;
+            } catch (IOException e) {
                 e.printStackTrace();
-                books = new ArrayList<>();
+                snapshot = null;
+                books.clear();
+                nextId = 1;
+            }
+        }
+        if (snapshot != null && snapshot.outdated) {
+            // Однократный перевод файла в текущую версию формата; при ошибке
+            // книги остаются загруженными, а файл переведёт следующее сохранение
+            try {
+                saveToFile(snapshot.books, snapshotSeq);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // Сохранённый полнотекстовый индекс годится, если он не старше снимка;
+        // книги, изменённые после его сохранения, индексируются заново при его загрузке
+        long textSeq = FullTextIndex.readSeq(fullTextFile);
+        boolean textUsable = textSeq >= snapshotSeq;
+        try {
+            journal.replay(snapshotSeq, entry -> {
+                if (textUsable && entry.seq > textSeq) {
+                    collectIds(entry, staleTextIds);
+                }
+                applyJournalEntry(entry);
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        long loadedSeq = journal.lastSeq();
+        // Индекс, сохранённый позже последней уцелевшей записи журнала, не соответствует данным
+        savedTextUsable = textUsable && textSeq <= loadedSeq;
+    }
+
+    private static void collectIds(LibraryJournal.Entry entry, Set<Integer> ids) {
+        if (entry.op == LibraryJournal.OP_BATCH) {
+            for (LibraryJournal.Entry child : entry.children) {
+                ids.add(child.id);
             }
+        } else {
+            ids.add(entry.id);
+        }
+    }
+
+    private void applyJournalEntry(LibraryJournal.Entry entry) {
+        switch (entry.op) {
+            case LibraryJournal.OP_ADD:
+            case LibraryJournal.OP_UPDATE:
+                books.put(entry.id, entry.book);
+                nextId = Math.max(nextId, entry.id + 1);
+                break;
+            case LibraryJournal.OP_REMOVE:
+                books.remove(entry.id);
+                break;
+            case LibraryJournal.OP_BATCH:
+                for (LibraryJournal.Entry child : entry.children) {
+                    applyJournalEntry(child);
+                }
+                break;
         }
     }
 
+    // Экспорт книг, удовлетворяющих фильтру (null - все книги), по снимку библиотеки
+    public int export(Path file, LibraryExporter.Format format, Predicate<Book> filter,
+                      IntConsumer progress, BooleanSupplier cancelled) throws IOException {
+        List<Book> snapshot = getAllBooks();
+        Iterable<Book> books = filter == null ? snapshot : () -> snapshot.stream().filter(filter).iterator();
+        return LibraryExporter.export(books, file, format, progress, cancelled);
+    }
+
     // Получение всех жанров
     public List<String> getAllGenres() {
-        List<String> genres = books.stream()
-                .map(Book::getGenre)
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
+        List<String> genres;
+        lock.readLock().lock();
+        try {
+            genres = this.genres.names();
+        } finally {
+            lock.readLock().unlock();
+        }
 
         // Добавляем популярные жанры, если список пуст
         if (genres.isEmpty()) {
@@ -129,21 +1338,18 @@ public class Library {
     }
 
     // Получение статистики
+    public LibraryStats getStats() {
+        lock.readLock().lock();
+        try {
+            int totalBooks = books.size();
+            return new LibraryStats(totalBooks, columns.authorCount(), totalPages,
+                    totalBooks > 0 ? ratingSum / totalBooks : 0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     public String getStatistics() {
-        int totalBooks = books.size();
-        if (totalBooks == 0) return "В библиотеке нет книг";
-
-        int totalPages = books.stream().mapToInt(Book::getPages).sum();
-        double avgRating = books.stream().mapToDouble(Book::getRating).average().orElse(0);
-        long uniqueAuthors = books.stream().map(Book::getAuthor).distinct().count();
-
-        return String.format(
-                "<html><b>Статистика библиотеки:</b><br>" +
-                        "Всего книг: %d<br>" +
-                        "Количество авторов: %d<br>" +
-                        "Общее количество страниц: %d<br>" +
-                        "Средний рейтинг: %.1f/5.0</html>",
-                totalBooks, uniqueAuthors, totalPages, avgRating
-        );
+        return getStats().toHtml();
     }
 }
@@ -0,0 +1,310 @@
+// LibraryCli.java - работа с библиотекой из командной строки без графического интерфейса
+
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Команды query, import, export, stats и serve работают с Library напрямую и не
+ * загружают классы AWT/Swing. Книги выводятся потоком в stdout (по умолчанию
+ * в формате JSON Lines), сообщения и ход работы - в stderr, поэтому вывод
+ * можно передавать по конвейеру другим программам.
+ */
+public class LibraryCli {
+    // Коды завершения
+    public static final int OK = 0;
+    public static final int FAILED = 1;
+    public static final int USAGE = 2;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int DEFAULT_TEXT_LIMIT = 1000;
+
+    private static final String HELP =
+            "Использование: java Main <команда> [параметры]\n" +
+            "  query   [--title T] [--author A] [--genre G] [--from дд.мм.гггг] [--to дд.мм.гггг]\n" +
+            "          [--min-rating R] [--max-rating R] [--min-pages N] [--max-pages N]\n" +
+            "          [--text ЗАПРОС [--limit N] | --fuzzy ЗАПРОС] [--format jsonl|csv]\n" +
+            "          (с --text и --fuzzy остальные параметры сужают найденное)\n" +
+            "  import  <папка>\n" +
+            "  export  [--format jsonl|csv] [--output файл]\n" +
+            "  stats\n" +
+            "  serve   [--port N]   HTTP API на localhost (по умолчанию порт " + LibraryServer.DEFAULT_PORT + ")\n" +
+            "Без команды запускается графический интерфейс.\n";
+
+    private static class UsageException extends Exception {
+        UsageException(String message) {
+            super(message);
+        }
+    }
+
+    // Выполнение команды; возвращает код завершения
+    public static int run(String[] args) {
+        // Сообщения выводятся в той же кодировке UTF-8, что и данные книг
+        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(new FileOutputStream(FileDescriptor.err), true, StandardCharsets.UTF_8));
+        String command = args[0];
+        Library library = null;
+        try {
+            switch (command) {
+                case "query":
+                    Map<String, String> queryOptions = options(args, "title", "author", "genre", "from", "to",
+                            "min-rating", "max-rating", "min-pages", "max-pages", "text", "limit", "fuzzy", "format");
+                    library = new Library(true);
+                    return query(library, queryOptions);
+                case "import":
+                    if (args.length != 2) {
+                        throw new UsageException("Укажите папку для импорта");
+                    }
+                    Path directory = Paths.get(args[1]);
+                    if (!Files.isDirectory(directory)) {
+                        throw new UsageException("Папка не найдена: " + directory);
+                    }
+                    library = new Library(true);
+                    return importFolder(library, directory);
+                case "export":
+                    Map<String, String> exportOptions = options(args, "format", "output");
+                    library = new Library(true);
+                    return export(library, exportOptions);
+                case "stats":
+                    options(args);
+                    library = new Library(true);
+                    return stats(library);
+                case "serve":
+                    Map<String, String> serveOptions = options(args, "port");
+                    int port = intOption(serveOptions, "port", LibraryServer.DEFAULT_PORT);
+                    library = new Library(true);
+                    return serve(library, port);
+                case "help":
+                case "--help":
+                    System.out.print(HELP);
+                    return OK;
+                default:
+                    throw new UsageException("Неизвестная команда: " + command);
+            }
+        } catch (UsageException e) {
+            System.err.println(e.getMessage());
+            System.err.print(HELP);
+            return USAGE;
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Ошибка: " + e.getMessage());
+            return FAILED;
+        } finally {
+            if (library != null) {
+                library.close();
+            }
+        }
+    }
+
+    private static int query(Library library, Map<String, String> options) throws IOException, UsageException {
+        LibraryExporter.Format format = format(options);
+        BookQuery query = buildQuery(options);
+        if (options.containsKey("text") && options.containsKey("fuzzy")) {
+            throw new UsageException("Параметры --text и --fuzzy нельзя указывать вместе");
+        }
+        if (options.containsKey("limit") && !options.containsKey("text")) {
+            throw new UsageException("Параметр --limit действует только вместе с --text");
+        }
+        List<Book> books;
+        if (options.containsKey("text")) {
+            int limit = intOption(options, "limit", DEFAULT_TEXT_LIMIT);
+            // С фильтрами лучшие совпадения отбираются среди подходящих под них книг
+            books = query.hasConditions()
+                    ? matching(library.searchFullText(options.get("text"), Integer.MAX_VALUE), library.query(query), limit)
+                    : library.searchFullText(options.get("text"), limit);
+        } else if (options.containsKey("fuzzy")) {
+            books = library.searchFuzzy(options.get("fuzzy"));
+            if (query.hasConditions()) {
+                books = matching(books, library.query(query), Integer.MAX_VALUE);
+            }
+        } else {
+            books = library.query(query);
+        }
+        write(books, format);
+        return OK;
+    }
+
+    // Книги результата поиска (в его порядке), которые есть и в результате запроса
+    private static List<Book> matching(List<Book> found, List<Book> filtered, int limit) {
+        Set<Integer> ids = new HashSet<>(filtered.size() * 2);
+        for (Book book : filtered) {
+            ids.add(book.getId());
+        }
+        List<Book> result = new ArrayList<>();
+        for (int i = 0; i < found.size() && result.size() < limit; i++) {
+            if (ids.contains(found.get(i).getId())) {
+                result.add(found.get(i));
+            }
+        }
+        return result;
+    }
+
+    private static BookQuery buildQuery(Map<String, String> options) throws UsageException {
+        BookQuery query = new BookQuery()
+                .title(options.get("title"))
+                .author(options.get("author"))
+                .genre(options.get("genre"));
+        if (options.containsKey("from") || options.containsKey("to")) {
+            query.publishedBetween(dateOption(options, "from"), dateOption(options, "to"));
+        }
+        if (options.containsKey("min-rating")) {
+            query.minRating(doubleOption(options, "min-rating"));
+        }
+        if (options.containsKey("max-rating")) {
+            query.maxRating(doubleOption(options, "max-rating"));
+        }
+        if (options.containsKey("min-pages")) {
+            query.minPages(intOption(options, "min-pages", 0));
+        }
+        if (options.containsKey("max-pages")) {
+            query.maxPages(intOption(options, "max-pages", 0));
+        }
+        return query;
+    }
+
+    // Импорт пачками: каждая пачка - одна запись журнала; изменённые файлы книг библиотеки перечитываются
+    private static int importFolder(Library library, Path directory) throws IOException {
+        List<Path> files = BulkImporter.scan(directory);
+        System.err.println("Найдено файлов: " + files.size());
+        MetadataCache cache = MetadataCache.load(library.getDirectory());
+        Map<Library.ImportResult, Integer> counts = new EnumMap<>(Library.ImportResult.class);
+        BulkImporter.importFiles(files, cache,
+                file -> library.containsFile(file.toAbsolutePath().toString()),
+                batch -> {
+                    try {
+                        library.batch(lib -> {
+                            for (Book book : batch) {
+                                counts.merge(lib.importBook(book), 1, Integer::sum);
+                            }
+                        });
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                },
+                done -> System.err.print("\rОбработано " + done + " из " + files.size()),
+                () -> false);
+        cache.save();
+        System.err.println();
+        System.err.println("Импортировано книг: " + counts.getOrDefault(Library.ImportResult.ADDED, 0)
+                + ", обновлено: " + counts.getOrDefault(Library.ImportResult.UPDATED, 0)
+                + ", пропущено дубликатов: " + counts.getOrDefault(Library.ImportResult.DUPLICATE, 0));
+        return OK;
+    }
+
+    private static int export(Library library, Map<String, String> options) throws IOException, UsageException {
+        LibraryExporter.Format format = format(options);
+        if (options.containsKey("output")) {
+            int written = library.export(Paths.get(options.get("output")), format, null, done -> { }, () -> false);
+            System.err.println("Экспортировано книг: " + written);
+        } else {
+            write(library.getAllBooks(), format);
+        }
+        return OK;
+    }
+
+    private static int stats(Library library) {
+        System.out.println(library.getStats().toText());
+        return OK;
+    }
+
+    /*
+     * Сервер работает до завершения процесса (Ctrl+C или сигнал); библиотеку
+     * закрывает обработчик завершения JVM, поэтому метод не возвращается.
+     */
+    private static int serve(Library library, int port) throws IOException {
+        library.prepareSearch();
+        LibraryServer server = new LibraryServer(library, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            library.close();
+        }, "library-shutdown"));
+        server.start();
+        System.err.println("HTTP API: http://localhost:" + server.getPort() + "/books");
+        try {
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return OK;
+    }
+
+    private static void write(Iterable<Book> books, LibraryExporter.Format format) throws IOException {
+        // Вывод в stdout без PrintStream, через собственный буфер
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out),
+                StandardCharsets.UTF_8), BUFFER_SIZE);
+        LibraryExporter.export(books, out, format, done -> { }, () -> false);
+    }
+
+    // Разбор параметров вида --имя значение; допускаются только перечисленные имена
+    private static Map<String, String> options(String[] args, String... names) throws UsageException {
+        Map<String, String> options = new HashMap<>();
+        List<String> allowed = List.of(names);
+        for (int i = 1; i < args.length; i += 2) {
+            String name = args[i].startsWith("--") ? args[i].substring(2) : null;
+            if (name == null || !allowed.contains(name)) {
+                throw new UsageException("Неизвестный параметр: " + args[i]);
+            }
+            if (i + 1 >= args.length) {
+                throw new UsageException("Не указано значение параметра " + args[i]);
+            }
+            options.put(name, args[i + 1]);
+        }
+        return options;
+    }
+
+    private static LibraryExporter.Format format(Map<String, String> options) throws UsageException {
+        String value = options.getOrDefault("format", "jsonl");
+        for (LibraryExporter.Format format : LibraryExporter.Format.values()) {
+            if (format.getExtension().equals(value.toLowerCase(Locale.ROOT))) {
+                return format;
+            }
+        }
+        throw new UsageException("Неизвестный формат: " + value);
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) throws UsageException {
+        String value = options.get(name);
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new UsageException("Некорректное число в --" + name + ": " + value);
+        }
+    }
+
+    private static double doubleOption(Map<String, String> options, String name) throws UsageException {
+        String value = options.get(name);
+        try {
+            return Double.parseDouble(value.replace(',', '.'));
+        } catch (NumberFormatException e) {
+            throw new UsageException("Некорректное число в --" + name + ": " + value);
+        }
+    }
+
+    private static LocalDate dateOption(Map<String, String> options, String name) throws UsageException {
+        String value = options.get(name);
+        try {
+            return value != null ? LocalDate.parse(value, Book.DATE_FORMAT) : null;
+        } catch (DateTimeParseException e) {
+            throw new UsageException("Введите дату в формате дд.мм.гггг: " + value);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+// LibraryExporter.java - потоковый экспорт книг в CSV и JSON Lines
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/**
+ * Книги записываются по одной через буферизованный канал файла, поэтому
+ * расход памяти не зависит от размера библиотеки.
+ */
+public class LibraryExporter {
+    public enum Format {
+        CSV("csv"), JSONL("jsonl");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Как часто сообщать о ходе экспорта
+    private static final int PROGRESS_STEP = 1000;
+
+    // Экспорт в файл; возвращает число записанных книг. При отмене или ошибке недописанный файл удаляется
+    public static int export(Iterable<Book> books, Path file, Format format,
+                             IntConsumer progress, BooleanSupplier cancelled) throws IOException {
+        int written;
+        boolean complete = false;
+        try {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(),
+                         BUFFER_SIZE), BUFFER_SIZE)) {
+                written = export(books, out, format, progress, cancelled);
+            }
+            complete = !cancelled.getAsBoolean();
+        } finally {
+            if (!complete) {
+                deleteQuietly(file);
+            }
+        }
+        return written;
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // Пробрасывается исходная ошибка экспорта
+            e.printStackTrace();
+        }
+    }
+
+    // Экспорт в произвольный поток (например, стандартный вывод)
+    public static int export(Iterable<Book> books, Writer out, Format format,
+                             IntConsumer progress, BooleanSupplier cancelled) throws IOException {
+        if (format == Format.CSV) {
+            out.write("id,title,author,genre,publication_date,pages,rating,file_path,description\n");
+        }
+        int written = 0;
+        for (Book book : books) {
+            if (written % PROGRESS_STEP == 0) {
+                if (cancelled.getAsBoolean()) {
+                    break;
+                }
+                progress.accept(written);
+            }
+            if (format == Format.CSV) {
+                writeCsv(out, book);
+            } else {
+                writeJson(out, book);
+            }
+            written++;
+        }
+        out.flush();
+        progress.accept(written);
+        return written;
+    }
+
+    private static void writeCsv(Writer out, Book book) throws IOException {
+        out.write(Integer.toString(book.getId()));
+        out.write(',');
+        csvField(out, book.getTitle());
+        out.write(',');
+        csvField(out, book.getAuthor());
+        out.write(',');
+        csvField(out, book.getGenre());
+        out.write(',');
+        if (book.getPublicationDate() != null) {
+            out.write(book.getPublicationDate().toString());
+        }
+        out.write(',');
+        out.write(Integer.toString(book.getPages()));
+        out.write(',');
+        out.write(Double.toString(book.getRating()));
+        out.write(',');
+        csvField(out, book.getFilePath());
+        out.write(',');
+        csvField(out, book.getDescription());
+        out.write('\n');
+    }
+
+    // Поле CSV в кавычках, если содержит разделитель, кавычку или перевод строки
+    private static void csvField(Writer out, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    static void writeJson(Writer out, Book book) throws IOException {
+        out.write("{\"id\":");
+        out.write(Integer.toString(book.getId()));
+        out.write(",\"title\":");
+        jsonString(out, book.getTitle());
+        out.write(",\"author\":");
+        jsonString(out, book.getAuthor());
+        out.write(",\"genre\":");
+        jsonString(out, book.getGenre());
+        out.write(",\"publicationDate\":");
+        jsonString(out, book.getPublicationDate() != null ? book.getPublicationDate().toString() : null);
+        out.write(",\"pages\":");
+        out.write(Integer.toString(book.getPages()));
+        out.write(",\"rating\":");
+        out.write(Double.toString(book.getRating()));
+        out.write(",\"filePath\":");
+        jsonString(out, book.getFilePath());
+        out.write(",\"description\":");
+        jsonString(out, book.getDescription());
+        out.write("}\n");
+    }
+
+    static void jsonString(Writer out, String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+}
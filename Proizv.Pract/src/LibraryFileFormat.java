@@ -0,0 +1,225 @@
+// LibraryFileFormat.java - двоичный колоночный формат файла библиотеки
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Версионированный двоичный формат снимка библиотеки.
+ *
+ * Заголовок: магическое число, версия, количество книг, номер последней
+ * записи журнала. Далее поля хранятся по колонкам: идентификаторы (с версии 2),
+ * хэши содержимого файлов (с версии 3),
+ * строки - длина + UTF-8,
+ * даты - номер дня от эпохи (int), страницы - int, рейтинг - double.
+ * Описания записываются последней колонкой, поэтому при отложенной загрузке
+ * их можно пропустить, запомнив только смещения.
+ */
+public class LibraryFileFormat {
+    private static final int MAGIC = 0x45424C42; // "EBLB"
+    private static final short VERSION = 3;
+    // Начало потока стандартной сериализации Java (старый формат файла)
+    private static final short JAVA_SERIAL_MAGIC = (short) 0xACED;
+    private static final int NULL_DATE = Integer.MIN_VALUE;
+
+    // Содержимое файла: книги и номер последней учтённой записи журнала
+    public static class Snapshot {
+        public final List<Book> books;
+        public final long seq;
+        // Файл записан в старом формате и должен быть перезаписан
+        public final boolean outdated;
+        // Источник отложенных описаний книг (null - описания прочитаны сразу)
+        public final DescriptionStore descriptions;
+
+        Snapshot(List<Book> books, long seq, boolean outdated, DescriptionStore descriptions) {
+            this.books = books;
+            this.seq = seq;
+            this.outdated = outdated;
+            this.descriptions = descriptions;
+        }
+    }
+
+    // Проверка, записан ли файл старой сериализацией Java
+    public static boolean isLegacyFormat(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readShort() == JAVA_SERIAL_MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    // Возвращает смещения описаний книг в записанном файле - для DescriptionStore
+    public static int[] write(Path file, List<Book> books, long seq) throws IOException {
+        int count = books.size();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(count);
+            out.writeLong(seq);
+
+            for (Book book : books) out.writeInt(book.getId());
+            for (Book book : books) writeString(out, book.getTitle());
+            for (Book book : books) writeString(out, book.getAuthor());
+            for (Book book : books) writeString(out, book.getGenre());
+            for (Book book : books) {
+                LocalDate date = book.getPublicationDate();
+                out.writeInt(date != null ? (int) date.toEpochDay() : NULL_DATE);
+            }
+            for (Book book : books) out.writeInt(book.getPages());
+            for (Book book : books) out.writeDouble(book.getRating());
+            for (Book book : books) writeString(out, book.getFilePath());
+            for (Book book : books) writeString(out, book.getContentHash());
+            int[] offsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = out.size();
+                writeString(out, books.get(i).getDescription());
+            }
+            out.flush();
+            // Данные должны оказаться на диске до переименования файла на место снимка
+            channel.force(true);
+            return offsets;
+        }
+    }
+
+    // Чтение через отображение файла в память
+    public static Snapshot read(Path file) throws IOException {
+        return read(file, false);
+    }
+
+    // lazyDescriptions - описания не декодируются, а читаются по смещениям при обращении
+    public static Snapshot read(Path file, boolean lazyDescriptions) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Файл библиотеки слишком велик: " + fileSize + " байт");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Неизвестный формат файла библиотеки");
+            }
+            short version = buffer.getShort();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Неподдерживаемая версия файла библиотеки: " + version);
+            }
+            int count = buffer.getInt();
+            long seq = buffer.getLong();
+
+            int[] ids = new int[count];
+            if (version >= 2) {
+                buffer.asIntBuffer().get(ids);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+            }
+            StringReader reader = new StringReader(buffer);
+            String[] titles = reader.readColumn(count);
+            String[] authors = reader.readColumn(count);
+            String[] genres = reader.readColumn(count);
+            int[] dates = new int[count];
+            buffer.asIntBuffer().get(dates);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            int[] pages = new int[count];
+            buffer.asIntBuffer().get(pages);
+            buffer.position(buffer.position() + count * Integer.BYTES);
+            double[] ratings = new double[count];
+            buffer.asDoubleBuffer().get(ratings);
+            buffer.position(buffer.position() + count * Double.BYTES);
+            String[] filePaths = reader.readColumn(count);
+            String[] hashes = version >= 3 ? reader.readColumn(count) : new String[count];
+
+            DescriptionStore descriptionStore = null;
+            String[] descriptions = null;
+            if (lazyDescriptions) {
+                int[] offsets = new int[count];
+                for (int i = 0; i < count; i++) {
+                    offsets[i] = buffer.position();
+                    int length = buffer.getInt();
+                    buffer.position(buffer.position() + Math.max(length, 0));
+                }
+                descriptionStore = new DescriptionStore(file, offsets);
+            } else {
+                descriptions = reader.readColumn(count);
+            }
+
+            List<Book> books = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Book book = new Book(titles[i], authors[i], genres[i],
+                        dates[i] != NULL_DATE ? LocalDate.ofEpochDay(dates[i]) : null,
+                        filePaths[i], pages[i], ratings[i], descriptions != null ? descriptions[i] : null);
+                book.setId(ids[i]);
+                book.setContentHash(hashes[i]);
+                if (descriptionStore != null) {
+                    book.setLazyDescription(descriptionStore, i);
+                }
+                books.add(book);
+            }
+            return new Snapshot(books, seq, version < VERSION, descriptionStore);
+        }
+    }
+
+    // Чтение файла старого формата (ArrayList<Book> + необязательный номер записи журнала)
+    @SuppressWarnings("unchecked")
+    public static Snapshot readLegacy(Path file) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            List<Book> books = (List<Book>) ois.readObject();
+            long seq = 0;
+            try {
+                seq = ois.readLong();
+            } catch (EOFException e) {
+                // Номер записи журнала появился позже
+            }
+            return new Snapshot(new ArrayList<>(books), seq, true, null);
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // Декодирование строк из буфера с переиспользованием временного массива
+    private static class StringReader {
+        private final ByteBuffer buffer;
+        private byte[] scratch = new byte[256];
+
+        StringReader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        String[] readColumn(int count) {
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = read();
+            }
+            return values;
+        }
+
+        String read() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
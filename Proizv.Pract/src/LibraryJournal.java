@@ -0,0 +1,416 @@
+// LibraryJournal.java - журнал изменений библиотеки (append-only)
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал мутаций библиотеки. Каждое изменение дописывается в конец файла
+ * отдельной записью: [длина][CRC32][операция, номер, идентификатор книги, книга].
+ * Пакет изменений пишется одной записью и применяется целиком или никак.
+ * Оборванная последняя запись (сбой во время записи) при чтении отбрасывается.
+ * Записи пишет фоновый поток: накопившиеся записи уходят на диск вместе,
+ * с одним fsync на группу, а вызывающий поток не ждёт диска.
+ */
+public class LibraryJournal {
+    public static final byte OP_ADD = 1;
+    public static final byte OP_UPDATE = 2;
+    public static final byte OP_REMOVE = 3;
+    public static final byte OP_BATCH = 4;
+
+    // Запись журнала
+    public static class Entry {
+        public final byte op;
+        public final long seq;
+        public final int id;
+        public final Book book;
+        // Изменения пакета (только для OP_BATCH)
+        public final List<Entry> children;
+
+        Entry(byte op, long seq, int id, Book book) {
+            this(op, seq, id, book, null);
+        }
+
+        Entry(byte op, long seq, int id, Book book, List<Entry> children) {
+            this.op = op;
+            this.seq = seq;
+            this.id = id;
+            this.book = book;
+            this.children = children;
+        }
+    }
+
+    // Запись, ожидающая фонового потока, или отметка переноса журнала (record == null)
+    private static class Pending {
+        final byte[] record;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(byte[] record) {
+            this.record = record;
+        }
+    }
+
+    private final Path journalFile;
+    private final Path rotatedFile;
+    // Все операции с файлом журнала выполняются в одном фоновом потоке
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "library-journal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final List<Pending> pending = new ArrayList<>();
+    private boolean flushScheduled;
+    private CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+    private long size;
+    private long lastSeq;
+    // Используются только фоновым потоком
+    private FileChannel channel;
+    private long written;
+
+    public LibraryJournal(String journalFile) {
+        this.journalFile = Paths.get(journalFile);
+        this.rotatedFile = Paths.get(journalFile + ".old");
+    }
+
+    // Воспроизведение журнала поверх снимка: записи с номером <= snapshotSeq пропускаются
+    public void replay(long snapshotSeq, Consumer<Entry> consumer) throws IOException {
+        lastSeq = snapshotSeq;
+        replayFile(rotatedFile, snapshotSeq, consumer);
+        size = replayFile(journalFile, snapshotSeq, consumer);
+    }
+
+    /*
+     * Методы log* только ставят запись в очередь и сразу возвращаются.
+     * Возвращаемый future завершается, когда запись сброшена на диск (fsync).
+     */
+    public synchronized CompletableFuture<Void> logAdd(Book book) throws IOException {
+        return append(OP_ADD, book.getId(), book);
+    }
+
+    public synchronized CompletableFuture<Void> logUpdate(Book book) throws IOException {
+        return append(OP_UPDATE, book.getId(), book);
+    }
+
+    public synchronized CompletableFuture<Void> logRemove(int id) throws IOException {
+        return append(OP_REMOVE, id, null);
+    }
+
+    // Запись пакета изменений одной записью журнала
+    public synchronized CompletableFuture<Void> logBatch(List<Entry> entries) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256 * entries.size());
+        DataOutputStream payload = new DataOutputStream(buffer);
+        payload.writeByte(OP_BATCH);
+        payload.writeLong(++lastSeq);
+        payload.writeInt(entries.size());
+        for (Entry entry : entries) {
+            payload.writeByte(entry.op);
+            payload.writeInt(entry.id);
+            if (entry.op != OP_REMOVE) {
+                writeBook(payload, entry.book);
+            }
+        }
+        return enqueue(frame(buffer.toByteArray()));
+    }
+
+    // Future, завершающийся после записи на диск всего, что уже поставлено в очередь
+    public synchronized CompletableFuture<Void> sync() {
+        return lastWrite;
+    }
+
+    // Размер журнала вместе с записями, ещё стоящими в очереди
+    public synchronized long size() {
+        return size;
+    }
+
+    public synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Переносит текущий журнал в файл .old, чтобы снимок можно было записать
+     * в фоне, а новые изменения шли в чистый журнал. Перенос выполняется в
+     * фоновом потоке после всех записей, поставленных в очередь раньше, поэтому
+     * в .old попадают ровно записи с номером <= lastSeq() на момент вызова.
+     * Если .old остался от незавершённого сжатия, записи дописываются в его конец.
+     */
+    public synchronized CompletableFuture<Void> rotate() {
+        size = 0;
+        return enqueue(null);
+    }
+
+    // Удаление перенесённого журнала после успешной записи снимка
+    public void discardRotated() throws IOException {
+        Files.deleteIfExists(rotatedFile);
+    }
+
+    // Дожидается записи очереди и закрывает файл
+    public void close() {
+        writer.execute(this::closeChannel);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Void> append(byte op, int id, Book book) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        DataOutputStream payload = new DataOutputStream(buffer);
+        payload.writeByte(op);
+        payload.writeLong(++lastSeq);
+        payload.writeInt(id);
+        if (book != null) {
+            writeBook(payload, book);
+        }
+        return enqueue(frame(buffer.toByteArray()));
+    }
+
+    // Запись целиком: [длина][CRC32][данные]
+    private static byte[] frame(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        ByteBuffer record = ByteBuffer.allocate(8 + bytes.length);
+        record.putInt(bytes.length);
+        record.putInt((int) crc.getValue());
+        record.put(bytes);
+        return record.array();
+    }
+
+    private CompletableFuture<Void> enqueue(byte[] record) {
+        Pending entry = new Pending(record);
+        pending.add(entry);
+        if (record != null) {
+            size += record.length;
+        }
+        lastWrite = entry.done;
+        if (!flushScheduled) {
+            flushScheduled = true;
+            writer.execute(this::flush);
+        }
+        return entry.done;
+    }
+
+    /*
+     * Групповая запись: всё, что накопилось в очереди, пока шла предыдущая
+     * запись, пишется одним вызовом и сбрасывается на диск одним fsync.
+     */
+    private void flush() {
+        List<Pending> group;
+        synchronized (this) {
+            group = new ArrayList<>(pending);
+            pending.clear();
+            flushScheduled = false;
+        }
+        int from = 0;
+        for (int i = 0; i <= group.size(); i++) {
+            if (i == group.size() || group.get(i).record == null) {
+                writeGroup(group.subList(from, i));
+                if (i < group.size()) {
+                    rotateFile(group.get(i));
+                }
+                from = i + 1;
+            }
+        }
+    }
+
+    private void writeGroup(List<Pending> group) {
+        if (group.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[group.size()];
+        long total = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(group.get(i).record);
+            total += buffers[i].remaining();
+        }
+        try {
+            if (channel == null) {
+                channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                written = channel.size();
+                channel.position(written);
+            }
+            long done = 0;
+            while (done < total) {
+                done += channel.write(buffers);
+            }
+            channel.force(false);
+            written += total;
+        } catch (IOException e) {
+            // Недописанная группа отрезается, чтобы следующие записи не оказались за ней
+            e.printStackTrace();
+            try {
+                if (channel != null) {
+                    channel.truncate(written);
+                }
+            } catch (IOException truncateError) {
+                e.addSuppressed(truncateError);
+            }
+            closeChannel();
+            for (Pending entry : group) {
+                entry.done.completeExceptionally(e);
+            }
+            return;
+        }
+        for (Pending entry : group) {
+            entry.done.complete(null);
+        }
+    }
+
+    private void rotateFile(Pending marker) {
+        closeChannel();
+        try {
+            if (Files.exists(journalFile)) {
+                if (Files.exists(rotatedFile)) {
+                    try (OutputStream os = Files.newOutputStream(rotatedFile, StandardOpenOption.APPEND)) {
+                        Files.copy(journalFile, os);
+                    }
+                    Files.delete(journalFile);
+                } else {
+                    Files.move(journalFile, rotatedFile, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            marker.done.complete(null);
+        } catch (IOException e) {
+            marker.done.completeExceptionally(e);
+        }
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+        }
+    }
+
+    // Возвращает длину корректной части файла; оборванный хвост обрезается
+    private long replayFile(Path file, long snapshotSeq, Consumer<Entry> consumer) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long fileSize = Files.size(file);
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (valid + 8 <= fileSize) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || valid + 8 + length > fileSize) {
+                    break;
+                }
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                CRC32 crc = new CRC32();
+                crc.update(bytes);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                Entry entry = readEntry(bytes);
+                if (entry.seq > snapshotSeq) {
+                    consumer.accept(entry);
+                }
+                lastSeq = Math.max(lastSeq, entry.seq);
+                valid += 8 + length;
+            }
+        }
+
+        if (valid < fileSize) {
+            System.err.println("Журнал " + file + ": отброшено " + (fileSize - valid) + " байт оборванной записи");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+        return valid;
+    }
+
+    private static Entry readEntry(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        byte op = in.readByte();
+        long seq = in.readLong();
+        int id = in.readInt();
+        if (op == OP_BATCH) {
+            List<Entry> children = new ArrayList<>(id);
+            for (int i = 0; i < id; i++) {
+                byte childOp = in.readByte();
+                int childId = in.readInt();
+                Book childBook = childOp == OP_REMOVE ? null : readBook(in);
+                if (childBook != null) {
+                    childBook.setId(childId);
+                }
+                children.add(new Entry(childOp, seq, childId, childBook));
+            }
+            return new Entry(op, seq, id, null, children);
+        }
+        Book book = op == OP_REMOVE ? null : readBook(in);
+        if (book != null) {
+            book.setId(id);
+        }
+        return new Entry(op, seq, id, book);
+    }
+
+    static void writeBook(DataOutputStream out, Book book) throws IOException {
+        writeString(out, book.getTitle());
+        writeString(out, book.getAuthor());
+        writeString(out, book.getGenre());
+        out.writeLong(book.getPublicationDate() != null ? book.getPublicationDate().toEpochDay() : Long.MIN_VALUE);
+        writeString(out, book.getFilePath());
+        out.writeInt(book.getPages());
+        out.writeDouble(book.getRating());
+        writeString(out, book.getDescription());
+        writeString(out, book.getContentHash());
+    }
+
+    static Book readBook(DataInputStream in) throws IOException {
+        String title = readString(in);
+        String author = readString(in);
+        String genre = readString(in);
+        long epochDay = in.readLong();
+        String filePath = readString(in);
+        int pages = in.readInt();
+        double rating = in.readDouble();
+        String description = readString(in);
+        Book book = new Book(title, author, genre,
+                epochDay != Long.MIN_VALUE ? LocalDate.ofEpochDay(epochDay) : null,
+                filePath, pages, rating, description);
+        // Записи, сделанные до появления хэша, заканчиваются на описании
+        if (in.available() > 0) {
+            book.setContentHash(readString(in));
+        }
+        return book;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
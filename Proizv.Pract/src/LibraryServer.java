@@ -0,0 +1,517 @@
+// LibraryServer.java - встроенный HTTP API библиотеки для локальных программ
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP-сервер на com.sun.net.httpserver, доступный только с этого компьютера.
+ * Каждый запрос обрабатывается в своём виртуальном потоке (если JVM их
+ * поддерживает, иначе - в потоке из кэширующего пула), а блокировка чтения
+ * Library позволяет читающим запросам выполняться одновременно.
+ *
+ * GET    /books?title=&author=&genre=&from=&to=&minRating=&maxRating=&minPages=&maxPages=&after=&limit=
+ * GET    /books/{id}
+ * POST   /books            (тело - книга в JSON)
+ * PUT    /books/{id}
+ * DELETE /books/{id}
+ * GET    /search?text=&limit=  или  /search?fuzzy=&limit=
+ * GET    /stats
+ *
+ * Список /books идёт по возрастанию идентификаторов и делится на страницы по
+ * ключу: поле next ответа передаётся в параметре after следующего запроса.
+ * Книги пишутся в ответ по мере обхода, без сборки всего ответа в памяти.
+ */
+public class LibraryServer {
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int BACKLOG = 1024;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final Library library;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private static class HttpError extends Exception {
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    public LibraryServer(Library library, int port) throws IOException {
+        this.library = library;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/books", this::handle);
+        server.createContext("/search", this::handle);
+        server.createContext("/stats", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // Остановка: новые соединения не принимаются, начатые запросы получают delay секунд на завершение
+    public void stop(int delay) {
+        server.stop(delay);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /*
+     * Виртуальные потоки появились в Java 21, а проект собирается под Java 11,
+     * поэтому фабрика ищется через отражение.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "library-http");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (path.equals("/books") || path.equals("/books/")) {
+                if (method.equals("GET")) {
+                    listBooks(exchange, params);
+                } else if (method.equals("POST")) {
+                    Book book = parseBook(readBody(exchange));
+                    library.addBook(book);
+                    sendBook(exchange, 201, book);
+                } else {
+                    throw new HttpError(405, "Метод не поддерживается");
+                }
+            } else if (path.startsWith("/books/")) {
+                int id = parseId(path.substring("/books/".length()));
+                if (method.equals("GET")) {
+                    sendBook(exchange, 200, findBook(id));
+                } else if (method.equals("PUT")) {
+                    Book book = parseBook(readBody(exchange));
+                    if (!library.updateBook(id, book)) {
+                        throw new HttpError(404, "Книга не найдена");
+                    }
+                    sendBook(exchange, 200, book);
+                } else if (method.equals("DELETE")) {
+                    if (!library.removeBook(id)) {
+                        throw new HttpError(404, "Книга не найдена");
+                    }
+                    exchange.sendResponseHeaders(204, -1);
+                } else {
+                    throw new HttpError(405, "Метод не поддерживается");
+                }
+            } else if (path.equals("/search") && method.equals("GET")) {
+                search(exchange, params);
+            } else if (path.equals("/stats") && method.equals("GET")) {
+                sendStats(exchange);
+            } else {
+                throw new HttpError(404, "Неизвестный адрес");
+            }
+        } catch (HttpError e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, String.valueOf(e.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Страница списка книг, начиная с первой книги с идентификатором больше after
+    private void listBooks(HttpExchange exchange, Map<String, String> params) throws IOException, HttpError {
+        BookQuery query = new BookQuery()
+                .title(params.get("title"))
+                .author(params.get("author"))
+                .genre(params.get("genre"));
+        if (params.containsKey("from") || params.containsKey("to")) {
+            query.publishedBetween(dateParam(params, "from"), dateParam(params, "to"));
+        }
+        if (params.containsKey("minRating")) {
+            query.minRating(doubleParam(params, "minRating"));
+        }
+        if (params.containsKey("maxRating")) {
+            query.maxRating(doubleParam(params, "maxRating"));
+        }
+        if (params.containsKey("minPages")) {
+            query.minPages(intParam(params, "minPages", 0));
+        }
+        if (params.containsKey("maxPages")) {
+            query.maxPages(intParam(params, "maxPages", 0));
+        }
+        int after = intParam(params, "after", 0);
+        int limit = intParam(params, "limit", DEFAULT_LIMIT);
+        if (limit <= 0) {
+            throw new HttpError(400, "Параметр limit должен быть положительным");
+        }
+
+        // Лишняя книга после страницы показывает, есть ли следующая
+        int fetch = (int) Math.min((long) limit + 1, Integer.MAX_VALUE);
+        List<Book> books;
+        if (query.hasConditions()) {
+            // Отбор останавливается, как только страница наполнилась
+            books = library.query(query, after, fetch);
+        } else {
+            // Общий список всех книг упорядочен по идентификатору - начало страницы находит бинарный поиск
+            List<Book> all = library.getAllBooks();
+            int from = firstAfter(all, after);
+            books = all.subList(from, (int) Math.min((long) from + fetch, all.size()));
+        }
+        int count = Math.min(books.size(), limit);
+
+        Writer out = startJson(exchange, 200);
+        out.write("{\"books\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            LibraryExporter.writeJson(out, books.get(i));
+        }
+        out.write("],\"next\":");
+        out.write(books.size() > limit ? Integer.toString(books.get(limit - 1).getId()) : "null");
+        out.write("}");
+        out.flush();
+    }
+
+    private static int firstAfter(List<Book> books, int id) {
+        int low = 0;
+        int high = books.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (books.get(middle).getId() <= id) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Поиск по описанию или с опечатками: лучшие совпадения первыми, без страниц
+    private void search(HttpExchange exchange, Map<String, String> params) throws IOException, HttpError {
+        int limit = intParam(params, "limit", DEFAULT_LIMIT);
+        List<Book> books;
+        if (params.containsKey("text")) {
+            books = library.searchFullText(params.get("text"), limit);
+        } else if (params.containsKey("fuzzy")) {
+            books = library.searchFuzzy(params.get("fuzzy"));
+        } else {
+            throw new HttpError(400, "Укажите параметр text или fuzzy");
+        }
+        Writer out = startJson(exchange, 200);
+        out.write("{\"books\":[");
+        for (int i = 0; i < books.size() && i < limit; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            LibraryExporter.writeJson(out, books.get(i));
+        }
+        out.write("]}");
+        out.flush();
+    }
+
+    private void sendStats(HttpExchange exchange) throws IOException {
+        LibraryStats stats = library.getStats();
+        Writer out = startJson(exchange, 200);
+        out.write("{\"totalBooks\":" + stats.getTotalBooks()
+                + ",\"uniqueAuthors\":" + stats.getUniqueAuthors()
+                + ",\"totalPages\":" + stats.getTotalPages()
+                + ",\"averageRating\":" + stats.getAverageRating() + "}");
+        out.flush();
+    }
+
+    private Book findBook(int id) throws HttpError {
+        Book book = library.getBook(id);
+        if (book == null) {
+            throw new HttpError(404, "Книга не найдена");
+        }
+        return book;
+    }
+
+    private static void sendBook(HttpExchange exchange, int status, Book book) throws IOException {
+        Writer out = startJson(exchange, status);
+        LibraryExporter.writeJson(out, book);
+        out.flush();
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        // Ответ уже начат - код ошибки передать нельзя, соединение просто закрывается
+        if (exchange.getResponseCode() != -1) {
+            return;
+        }
+        Writer out = startJson(exchange, status);
+        out.write("{\"error\":");
+        LibraryExporter.jsonString(out, message);
+        out.write("}");
+        out.flush();
+    }
+
+    // Ответ без заранее известной длины передаётся частями (chunked)
+    private static Writer startJson(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, 0);
+        return new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            String name = separator >= 0 ? pair.substring(0, separator) : pair;
+            String value = separator >= 0 ? pair.substring(separator + 1) : "";
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int parseId(String text) throws HttpError {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new HttpError(404, "Книга не найдена");
+        }
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) throws HttpError {
+        String value = params.get(name);
+        try {
+            return value != null ? Integer.parseInt(value) : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Некорректное число в параметре " + name);
+        }
+    }
+
+    private static double doubleParam(Map<String, String> params, String name) throws HttpError {
+        try {
+            return Double.parseDouble(params.get(name));
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, "Некорректное число в параметре " + name);
+        }
+    }
+
+    // Даты в запросах - в том же виде, что и в ответах (гггг-мм-дд)
+    private static LocalDate dateParam(Map<String, String> params, String name) throws HttpError {
+        String value = params.get(name);
+        try {
+            return value != null && !value.isEmpty() ? LocalDate.parse(value) : null;
+        } catch (DateTimeParseException e) {
+            throw new HttpError(400, "Дата в параметре " + name + " должна быть в формате гггг-мм-дд");
+        }
+    }
+
+    // Книга из JSON-объекта с полями, как в ответах сервера; id и неизвестные поля не учитываются
+    private static Book parseBook(String body) throws HttpError {
+        Map<String, Object> fields = new JsonObjectParser(body).parse();
+        // Те же проверки, что и в диалоге книги
+        String title = requiredField(fields, "title", "Введите название книги");
+        String author = requiredField(fields, "author", "Введите автора книги");
+        String genre = requiredField(fields, "genre", "Выберите жанр книги");
+        String date = stringField(fields, "publicationDate");
+        LocalDate publicationDate;
+        try {
+            publicationDate = date != null ? LocalDate.parse(date) : null;
+        } catch (DateTimeParseException e) {
+            throw new HttpError(400, "Дата публикации должна быть в формате гггг-мм-дд");
+        }
+        double pages = numberField(fields, "pages");
+        if (pages < 0 || pages != (int) pages) {
+            throw new HttpError(400, "Введите корректное количество страниц");
+        }
+        double rating = numberField(fields, "rating");
+        if (!(rating >= 0 && rating <= 5)) {
+            throw new HttpError(400, "Рейтинг должен быть от 0 до 5");
+        }
+        String filePath = stringField(fields, "filePath");
+        return new Book(title, author, genre, publicationDate, filePath != null ? filePath : "",
+                (int) pages, rating, stringField(fields, "description"));
+    }
+
+    private static String requiredField(Map<String, Object> fields, String name, String message) throws HttpError {
+        String value = stringField(fields, name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new HttpError(400, message);
+        }
+        return value.trim();
+    }
+
+    private static String stringField(Map<String, Object> fields, String name) throws HttpError {
+        Object value = fields.get(name);
+        if (value != null && !(value instanceof String)) {
+            throw new HttpError(400, "Поле " + name + " должно быть строкой");
+        }
+        return (String) value;
+    }
+
+    private static double numberField(Map<String, Object> fields, String name) throws HttpError {
+        Object value = fields.get(name);
+        if (value != null && !(value instanceof Double)) {
+            throw new HttpError(400, "Поле " + name + " должно быть числом");
+        }
+        return value != null ? (Double) value : 0;
+    }
+
+    /**
+     * Разбор плоского JSON-объекта: значения - строки, числа, true/false или
+     * null. Вложенные объекты и массивы не нужны для книги и не поддерживаются.
+     */
+    private static class JsonObjectParser {
+        private final String text;
+        private int pos;
+
+        JsonObjectParser(String text) {
+            this.text = text;
+        }
+
+        Map<String, Object> parse() throws HttpError {
+            Map<String, Object> fields = new HashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                pos++;
+            } else {
+                do {
+                    String name = string();
+                    expect(':');
+                    fields.put(name, value());
+                } while (next() == ',');
+                pos--;
+                expect('}');
+            }
+            if (peek() != 0) {
+                throw error();
+            }
+            return fields;
+        }
+
+        private Object value() throws HttpError {
+            char c = peek();
+            if (c == '"') {
+                return string();
+            }
+            if (text.startsWith("null", pos)) {
+                pos += 4;
+                return null;
+            }
+            if (text.startsWith("true", pos)) {
+                pos += 4;
+                return Boolean.TRUE;
+            }
+            if (text.startsWith("false", pos)) {
+                pos += 5;
+                return Boolean.FALSE;
+            }
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            try {
+                return Double.parseDouble(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error();
+            }
+        }
+
+        private String string() throws HttpError {
+            expect('"');
+            StringBuilder result = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return result.toString();
+                }
+                if (c != '\\') {
+                    result.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char escape = text.charAt(pos++);
+                switch (escape) {
+                    case 'n': result.append('\n'); break;
+                    case 'r': result.append('\r'); break;
+                    case 't': result.append('\t'); break;
+                    case 'b': result.append('\b'); break;
+                    case 'f': result.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error();
+                        }
+                        try {
+                            result.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error();
+                        }
+                        pos += 4;
+                        break;
+                    default: result.append(escape);
+                }
+            }
+            throw error();
+        }
+
+        private void expect(char expected) throws HttpError {
+            if (next() != expected) {
+                throw error();
+            }
+        }
+
+        // Следующий значащий символ (0 в конце текста)
+        private char next() {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private char peek() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        private HttpError error() {
+            return new HttpError(400, "Некорректный JSON в позиции " + pos);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+// LibraryStats.java - сводные показатели библиотеки
+
+import java.util.Locale;
+
+public class LibraryStats {
+    private final int totalBooks;
+    private final int uniqueAuthors;
+    private final long totalPages;
+    private final double averageRating;
+
+    public LibraryStats(int totalBooks, int uniqueAuthors, long totalPages, double averageRating) {
+        this.totalBooks = totalBooks;
+        this.uniqueAuthors = uniqueAuthors;
+        this.totalPages = totalPages;
+        this.averageRating = averageRating;
+    }
+
+    public int getTotalBooks() { return totalBooks; }
+
+    public int getUniqueAuthors() { return uniqueAuthors; }
+
+    public long getTotalPages() { return totalPages; }
+
+    public double getAverageRating() { return averageRating; }
+
+    public String toHtml() {
+        if (totalBooks == 0) return "В библиотеке нет книг";
+
+        return String.format(
+                "<html><b>Статистика библиотеки:</b><br>" +
+                        "Всего книг: %d<br>" +
+                        "Количество авторов: %d<br>" +
+                        "Общее количество страниц: %d<br>" +
+                        "Средний рейтинг: %.1f/5.0</html>",
+                totalBooks, uniqueAuthors, totalPages, averageRating
+        );
+    }
+
+    // Те же показатели простым текстом для командной строки
+    public String toText() {
+        return String.format(Locale.ROOT,
+                "Всего книг: %d%n" +
+                        "Количество авторов: %d%n" +
+                        "Общее количество страниц: %d%n" +
+                        "Средний рейтинг: %.1f/5.0",
+                totalBooks, uniqueAuthors, totalPages, averageRating
+        );
+    }
+}
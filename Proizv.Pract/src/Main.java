@@ -1,9 +1,18 @@
 // Main.java - точка входа в приложение
 
 import javax.swing.*;
+import java.io.UncheckedIOException;
 
 public class Main {
     public static void main(String[] args) {
+        // С аргументами приложение работает как утилита командной строки, не загружая Swing
+        if (args.length > 0) {
+            System.exit(LibraryCli.run(args));
+        }
+        startGui();
+    }
+
+    private static void startGui() {
         // Установка внешнего вида системы
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -13,7 +22,15 @@ public class Main {
 
         // Запуск приложения в потоке обработки событий Swing
         SwingUtilities.invokeLater(() -> {
-            MainFrame mainFrame = new MainFrame();
+            MainFrame mainFrame;
+            try {
+                mainFrame = new MainFrame();
+            } catch (UncheckedIOException e) {
+                // Папка библиотеки занята другим процессом
+                JOptionPane.showMessageDialog(null, e.getMessage(), "Ошибка", JOptionPane.ERROR_MESSAGE);
+                System.exit(1);
+                return;
+            }
             mainFrame.setVisible(true);
         });
     }
@@ -2,12 +2,32 @@
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
-import javax.swing.table.TableRowSorter;
+import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 public class MainFrame extends JFrame {
     private Library library;
@@ -17,16 +37,43 @@ public class MainFrame extends JFrame {
     private JLabel statsLabel;
     private JTextField searchField;
     private JComboBox<String> searchTypeCombo;
-    private TableRowSorter<BookTableModel> sorter;
+
+    // Поиск выполняется в фоне после паузы в наборе текста
+    private static final int SEARCH_DELAY_MS = 250;
+    // Сколько лучших совпадений показывать при поиске по описанию
+    private static final int FULLTEXT_LIMIT = 200;
+    private Timer searchTimer;
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "library-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Future<?> searchTask;
+    private int searchGeneration;
+    // Поиск, результат которого показан в таблице (null - показана вся библиотека)
+    private Supplier<List<Book>> activeSearch;
+    // Загружается при первом импорте
+    private MetadataCache metadataCache;
 
     public MainFrame() {
         super("Библиотека электронных книг");
         library = new Library();
+        // Индексы поиска строятся в фоне, пока окно открывается; поиски встают в очередь за ними
+        searchExecutor.submit(library::prepareSearch);
         initComponents();
         setupMenu();
         setupTable();
         updateStatistics();
+        // Таблица и статистика обновляются один раз на каждое изменение или пакет изменений
+        library.addChangeListener(() -> SwingUtilities.invokeLater(this::refreshLibrary));
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                // Журнал пишется в фоне: перед выходом дожидаемся записи последних изменений
+                library.close();
+            }
+        });
         setSize(1000, 700);
         setLocationRelativeTo(null);
     }
@@ -42,17 +89,19 @@ public class MainFrame extends JFrame {
         JPanel searchPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
         searchPanel.add(new JLabel("Поиск:"));
         searchField = new JTextField(20);
+        searchTimer = new Timer(SEARCH_DELAY_MS, e -> filterTable());
+        searchTimer.setRepeats(false);
         searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
-            public void insertUpdate(DocumentEvent e) { filterTable(); }
+            public void insertUpdate(DocumentEvent e) { searchTimer.restart(); }
             @Override
-            public void removeUpdate(DocumentEvent e) { filterTable(); }
+            public void removeUpdate(DocumentEvent e) { searchTimer.restart(); }
             @Override
-            public void changedUpdate(DocumentEvent e) { filterTable(); }
+            public void changedUpdate(DocumentEvent e) { searchTimer.restart(); }
         });
         searchPanel.add(searchField);
 
-        searchTypeCombo = new JComboBox<>(new String[]{"По названию", "По автору", "По жанру"});
+        searchTypeCombo = new JComboBox<>(new String[]{"По названию", "По автору", "По жанру", "По описанию", "С опечатками"});
         searchPanel.add(searchTypeCombo);
 
         JButton clearSearchButton = new JButton("Очистить");
@@ -78,14 +127,22 @@ public class MainFrame extends JFrame {
         JPanel tablePanel = new JPanel(new BorderLayout());
         tablePanel.setBorder(BorderFactory.createTitledBorder("Книги"));
 
-        tableModel = new BookTableModel(library.getAllBooks());
+        tableModel = new BookTableModel(library);
         booksTable = new JTable(tableModel);
         booksTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         booksTable.getSelectionModel().addListSelectionListener(e -> showBookDetails());
         booksTable.setRowHeight(25);
 
-        sorter = new TableRowSorter<>(tableModel);
-        booksTable.setRowSorter(sorter);
+        // Сортирует сама модель по готовым индексам библиотеки, а не TableRowSorter
+        booksTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = booksTable.columnAtPoint(e.getPoint());
+                if (column >= 0) {
+                    sortTable(booksTable.convertColumnIndexToModel(column));
+                }
+            }
+        });
 
         JScrollPane tableScrollPane = new JScrollPane(booksTable);
         tablePanel.add(tableScrollPane, BorderLayout.CENTER);
@@ -146,6 +203,14 @@ public class MainFrame extends JFrame {
         importItem.addActionListener(e -> importBook());
         fileMenu.add(importItem);
 
+        JMenuItem importFolderItem = new JMenuItem("Импорт папки...");
+        importFolderItem.addActionListener(e -> importFolder());
+        fileMenu.add(importFolderItem);
+
+        JMenuItem reloadFilesItem = new JMenuItem("Перечитать изменённые файлы");
+        reloadFilesItem.addActionListener(e -> reloadChangedFiles());
+        fileMenu.add(reloadFilesItem);
+
         JMenuItem exportItem = new JMenuItem("Экспорт библиотеки...");
         exportItem.addActionListener(e -> exportLibrary());
         fileMenu.add(exportItem);
@@ -191,6 +256,11 @@ public class MainFrame extends JFrame {
         refreshItem.addActionListener(e -> refreshLibrary());
         viewMenu.add(refreshItem);
 
+        JMenuItem querySearchItem = new JMenuItem("Расширенный поиск...");
+        querySearchItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F, ActionEvent.CTRL_MASK));
+        querySearchItem.addActionListener(e -> advancedSearch());
+        viewMenu.add(querySearchItem);
+
         JMenuItem statsItem = new JMenuItem("Статистика");
         statsItem.addActionListener(e -> showStatistics());
         viewMenu.add(statsItem);
@@ -219,33 +289,81 @@ public class MainFrame extends JFrame {
         booksTable.getColumnModel().getColumn(3).setPreferredWidth(100);
         booksTable.getColumnModel().getColumn(4).setPreferredWidth(80);
         booksTable.getColumnModel().getColumn(5).setPreferredWidth(80);
+
+        // Страницы и рейтинг приходят из модели строками, но выравниваются как числа
+        DefaultTableCellRenderer numbers = new DefaultTableCellRenderer();
+        numbers.setHorizontalAlignment(SwingConstants.RIGHT);
+        booksTable.getColumnModel().getColumn(4).setCellRenderer(numbers);
+        booksTable.getColumnModel().getColumn(5).setCellRenderer(numbers);
     }
 
+    // Запуск поиска в фоновом потоке; результат устаревшего запроса не показывается
     private void filterTable() {
+        searchTimer.stop();
         String searchText = searchField.getText().trim();
         String searchType = (String) searchTypeCombo.getSelectedItem();
-
         if (searchText.isEmpty()) {
-            tableModel.updateData(library.getAllBooks());
+            // Вся библиотека показывается без поиска и без копирования
+            if (searchTask != null) {
+                searchTask.cancel(true);
+            }
+            searchGeneration++;
+            activeSearch = null;
+            updateRows(tableModel::showAll);
             return;
         }
+        runSearch(() -> search(searchText, searchType));
+    }
+
+    private void runSearch(Supplier<List<Book>> search) {
+        if (searchTask != null) {
+            searchTask.cancel(true);
+        }
+        int generation = ++searchGeneration;
+        activeSearch = search;
+        searchTask = searchExecutor.submit(() -> {
+            List<Book> filteredBooks = search.get();
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                if (generation == searchGeneration) {
+                    updateRows(() -> tableModel.showBooks(filteredBooks));
+                }
+            });
+        });
+    }
+
+    private List<Book> search(String searchText, String searchType) {
+        if (searchText.isEmpty()) {
+            return library.getAllBooks();
+        }
 
-        List<Book> filteredBooks;
         switch (searchType) {
             case "По названию":
-                filteredBooks = library.searchByTitle(searchText);
-                break;
+                return library.searchByTitle(searchText);
             case "По автору":
-                filteredBooks = library.searchByAuthor(searchText);
-                break;
+                return library.searchByAuthor(searchText);
             case "По жанру":
-                filteredBooks = library.searchByGenre(searchText);
-                break;
+                return library.searchByGenre(searchText);
+            case "По описанию":
+                return library.searchFullText(searchText, FULLTEXT_LIMIT);
+            case "С опечатками":
+                return library.searchFuzzy(searchText);
             default:
-                filteredBooks = library.getAllBooks();
+                return library.getAllBooks();
         }
+    }
 
-        tableModel.updateData(filteredBooks);
+    // Поиск по нескольким условиям сразу
+    private void advancedSearch() {
+        QueryDialog dialog = new QueryDialog(this, library.getAllGenres());
+        dialog.setVisible(true);
+        BookQuery query = dialog.getQuery();
+        if (query != null) {
+            searchTimer.stop();
+            runSearch(() -> library.query(query));
+        }
     }
 
     private void showBookDetails() {
@@ -283,8 +401,6 @@ public class MainFrame extends JFrame {
 
         if (dialog.isConfirmed()) {
             library.addBook(dialog.getBook());
-            tableModel.updateData(library.getAllBooks());
-            updateStatistics();
             JOptionPane.showMessageDialog(this, "Книга успешно добавлена", "Успех", JOptionPane.INFORMATION_MESSAGE);
         }
     }
@@ -300,9 +416,7 @@ public class MainFrame extends JFrame {
             dialog.setVisible(true);
 
             if (dialog.isConfirmed()) {
-                library.updateBook(modelRow, dialog.getBook());
-                tableModel.updateData(library.getAllBooks());
-                updateStatistics();
+                library.updateBook(book.getId(), dialog.getBook());
                 JOptionPane.showMessageDialog(this, "Книга успешно обновлена", "Успех", JOptionPane.INFORMATION_MESSAGE);
             }
         } else {
@@ -323,9 +437,7 @@ public class MainFrame extends JFrame {
                     JOptionPane.WARNING_MESSAGE);
 
             if (confirm == JOptionPane.YES_OPTION) {
-                library.removeBook(modelRow);
-                tableModel.updateData(library.getAllBooks());
-                updateStatistics();
+                library.removeBook(book.getId());
                 detailsArea.setText("");
                 JOptionPane.showMessageDialog(this, "Книга успешно удалена", "Успех", JOptionPane.INFORMATION_MESSAGE);
             }
@@ -370,41 +482,298 @@ public class MainFrame extends JFrame {
         fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
         fileChooser.setMultiSelectionEnabled(false);
 
-        if (fileChooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
-            File selectedFile = fileChooser.getSelectedFile();
-            // Здесь можно добавить логику парсинга метаданных из файла
-            BookDialog dialog = new BookDialog(this, "Импорт книги", null);
-            dialog.setGenres(library.getAllGenres());
-            dialog.setVisible(true);
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path file = fileChooser.getSelectedFile().toPath();
+        // Разбор файла и подсчёт хэша содержимого идут в фоне, окно остаётся отзывчивым
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        new SwingWorker<Book, Void>() {
+            @Override
+            protected Book doInBackground() throws Exception {
+                Book extracted = metadataCache().extract(file);
+                metadataCache().save();
+                return extracted;
+            }
 
-            if (dialog.isConfirmed()) {
-                library.addBook(dialog.getBook());
-                tableModel.updateData(library.getAllBooks());
-                updateStatistics();
+            @Override
+            protected void done() {
+                setCursor(Cursor.getDefaultCursor());
+                try {
+                    confirmImport(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                            "Не удалось прочитать файл: " + e.getCause().getMessage(),
+                            "Ошибка",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+
+    // Проверка дубликата и диалог с извлечёнными метаданными перед добавлением книги
+    private void confirmImport(Book extracted) {
+        String hash = extracted.getContentHash();
+        Book duplicate = library.findByContentHash(hash);
+        if (duplicate != null) {
+            int confirm = JOptionPane.showConfirmDialog(this,
+                    "Этот файл уже есть в библиотеке:\n\"" + duplicate.getTitle() + "\"\nДобавить ещё раз?",
+                    "Дубликат",
+                    JOptionPane.YES_NO_OPTION,
+                    JOptionPane.WARNING_MESSAGE);
+            if (confirm != JOptionPane.YES_OPTION) {
+                return;
             }
         }
+
+        BookDialog dialog = new BookDialog(this, "Импорт книги", extracted);
+        dialog.setGenres(library.getAllGenres());
+        dialog.setVisible(true);
+
+        if (dialog.isConfirmed()) {
+            dialog.getBook().setContentHash(hash);
+            library.addBook(dialog.getBook());
+        }
     }
 
-    private void exportLibrary() {
+    private synchronized MetadataCache metadataCache() {
+        if (metadataCache == null) {
+            metadataCache = MetadataCache.load(library.getDirectory());
+        }
+        return metadataCache;
+    }
+
+    // Импорт всех книг из папки с автоматическим чтением метаданных
+    private void importFolder() {
         JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setDialogTitle("Экспорт библиотеки");
+        fileChooser.setDialogTitle("Импорт папки с книгами");
         fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        if (fileChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path directory = fileChooser.getSelectedFile().toPath();
+        importFiles("Импорт папки", () -> BulkImporter.scan(directory));
+    }
 
-        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-            File selectedDir = fileChooser.getSelectedFile();
-            // Здесь можно добавить логику экспорта
-            JOptionPane.showMessageDialog(this,
-                    "Библиотека будет экспортирована в: " + selectedDir.getAbsolutePath(),
-                    "Экспорт",
-                    JOptionPane.INFORMATION_MESSAGE);
+    // Повторное чтение файлов книг библиотеки, изменившихся с последнего разбора
+    private void reloadChangedFiles() {
+        importFiles("Обновление из файлов", () -> {
+            List<Path> files = new ArrayList<>();
+            for (Book book : library.getAllBooks()) {
+                String path = book.getFilePath();
+                if (path != null && !path.isEmpty() && Files.isRegularFile(Paths.get(path))) {
+                    files.add(Paths.get(path));
+                }
+            }
+            return files;
+        });
+    }
+
+    /*
+     * Разбор файлов в фоне с индикатором хода. Новые файлы добавляются,
+     * изменённые файлы книг библиотеки заменяют прежние версии (см. Library.importBook).
+     */
+    private void importFiles(String title, Callable<List<Path>> scan) {
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setStringPainted(true);
+        progressBar.setString("Поиск файлов...");
+        JButton cancelButton = new JButton("Отмена");
+        JDialog progressDialog = createProgressDialog(title, progressBar, cancelButton);
+
+        SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>() {
+            private int total;
+            private int imported;
+            private int updated;
+            private int duplicates;
+
+            @Override
+            protected Integer doInBackground() throws Exception {
+                List<Path> files = scan.call();
+                total = files.size();
+                SwingUtilities.invokeLater(() -> {
+                    progressBar.setIndeterminate(false);
+                    progressBar.setMaximum(Math.max(total, 1));
+                });
+                BulkImporter.importFiles(files, metadataCache(),
+                        file -> library.containsFile(file.toAbsolutePath().toString()),
+                        batch -> {
+                            // Пачка записывается в журнал одной записью
+                            Map<Library.ImportResult, Integer> counts = new EnumMap<>(Library.ImportResult.class);
+                            try {
+                                library.batch(lib -> {
+                                    for (Book book : batch) {
+                                        counts.merge(lib.importBook(book), 1, Integer::sum);
+                                    }
+                                });
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            imported += counts.getOrDefault(Library.ImportResult.ADDED, 0);
+                            updated += counts.getOrDefault(Library.ImportResult.UPDATED, 0);
+                            duplicates += counts.getOrDefault(Library.ImportResult.DUPLICATE, 0);
+                        },
+                        done -> SwingUtilities.invokeLater(() -> {
+                            progressBar.setValue(done);
+                            progressBar.setString(done + " из " + total);
+                        }),
+                        this::isCancelled);
+                metadataCache().save();
+                return imported;
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                            "Импортировано книг: " + get() + "\nОбновлено книг: " + updated
+                                    + "\nПропущено дубликатов: " + duplicates,
+                            title,
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                            "Ошибка импорта: " + e.getMessage(),
+                            "Ошибка",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        cancelButton.addActionListener(e -> worker.cancel(false));
+        worker.execute();
+        progressDialog.setVisible(true);
+    }
+
+    private JDialog createProgressDialog(String title, JProgressBar progressBar, JButton cancelButton) {
+        JDialog progressDialog = new JDialog(this, title, false);
+        JPanel progressPanel = new JPanel(new BorderLayout(10, 10));
+        progressPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        progressPanel.add(progressBar, BorderLayout.CENTER);
+        progressPanel.add(cancelButton, BorderLayout.EAST);
+        progressDialog.add(progressPanel);
+        progressDialog.setSize(400, 90);
+        progressDialog.setLocationRelativeTo(this);
+        return progressDialog;
+    }
+
+    // Экспорт книг, отобранных текущим поиском (или всей библиотеки), в CSV или JSON Lines
+    private void exportLibrary() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Экспорт библиотеки");
+        fileChooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+        FileNameExtensionFilter csvFilter = new FileNameExtensionFilter("CSV (*.csv)", "csv");
+        FileNameExtensionFilter jsonlFilter = new FileNameExtensionFilter("JSON Lines (*.jsonl)", "jsonl");
+        fileChooser.addChoosableFileFilter(csvFilter);
+        fileChooser.addChoosableFileFilter(jsonlFilter);
+        fileChooser.setAcceptAllFileFilterUsed(false);
+        fileChooser.setFileFilter(csvFilter);
+
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
+        LibraryExporter.Format format = fileChooser.getFileFilter() == jsonlFilter
+                ? LibraryExporter.Format.JSONL : LibraryExporter.Format.CSV;
+        File selectedFile = fileChooser.getSelectedFile();
+        if (!selectedFile.getName().contains(".")) {
+            selectedFile = new File(selectedFile.getPath() + "." + format.getExtension());
+        }
+        Path target = selectedFile.toPath();
+        // Экспортируются книги, показанные в таблице: результат поиска или расширенного запроса
+        Supplier<List<Book>> search = activeSearch;
+
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        JButton cancelButton = new JButton("Отмена");
+        JDialog progressDialog = createProgressDialog("Экспорт библиотеки", progressBar, cancelButton);
+
+        SwingWorker<Integer, Void> worker = new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws Exception {
+                List<Book> books = search != null ? search.get() : library.getAllBooks();
+                SwingUtilities.invokeLater(() -> progressBar.setMaximum(Math.max(books.size(), 1)));
+                return LibraryExporter.export(books, target, format,
+                        done -> SwingUtilities.invokeLater(() -> {
+                            progressBar.setValue(done);
+                            progressBar.setString(done + " из " + books.size());
+                        }),
+                        this::isCancelled);
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                if (isCancelled()) {
+                    return;
+                }
+                try {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                            "Экспортировано книг: " + get() + "\nФайл: " + target.toAbsolutePath(),
+                            "Экспорт",
+                            JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    JOptionPane.showMessageDialog(MainFrame.this,
+                            "Ошибка экспорта: " + e.getMessage(),
+                            "Ошибка",
+                            JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        cancelButton.addActionListener(e -> worker.cancel(false));
+        worker.execute();
+        progressDialog.setVisible(true);
     }
 
     private void refreshLibrary() {
-        tableModel.updateData(library.getAllBooks());
+        refreshTable();
         updateStatistics();
     }
 
+    // Перечитывание строк таблицы; поиск выполняется заново, чтобы показать и книги, ставшие подходящими
+    private void refreshTable() {
+        updateRows(tableModel::refresh);
+        if (activeSearch != null) {
+            runSearch(activeSearch);
+        }
+    }
+
+    /*
+     * Изменение строк модели. О небольших изменениях таблица получает события
+     * строк и сама сохраняет выделение и прокрутку; если таблица обновилась
+     * целиком, выбранная книга выделяется снова.
+     */
+    private void updateRows(Runnable update) {
+        Book selected = tableModel.getBookAt(booksTable.getSelectedRow());
+        update.run();
+        Book current = tableModel.getBookAt(booksTable.getSelectedRow());
+        if (selected != null && (current == null || current.getId() != selected.getId())) {
+            selectBook(selected);
+        }
+    }
+
+    private void sortTable(int column) {
+        Book selected = tableModel.getBookAt(booksTable.getSelectedRow());
+        tableModel.sortBy(column);
+        for (int i = 0; i < booksTable.getColumnCount(); i++) {
+            TableColumn tableColumn = booksTable.getColumnModel().getColumn(i);
+            tableColumn.setHeaderValue(tableModel.getColumnName(tableColumn.getModelIndex()));
+        }
+        booksTable.getTableHeader().repaint();
+        selectBook(selected);
+    }
+
+    private void selectBook(Book book) {
+        int row = book != null ? tableModel.rowOf(book.getId()) : -1;
+        if (row >= 0) {
+            booksTable.setRowSelectionInterval(row, row);
+            booksTable.scrollRectToVisible(booksTable.getCellRect(row, 0, true));
+        }
+    }
+
     private void updateStatistics() {
         statsLabel.setText(library.getStatistics());
     }
@@ -0,0 +1,139 @@
+// MetadataCache.java - кэш извлечённых метаданных файлов книг
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Хранит результат разбора файла книги (метаданные и хэш содержимого) по
+ * ключу: абсолютный путь, размер, время изменения. Повторный импорт
+ * неизменённого файла берёт данные отсюда, не открывая сам файл.
+ * Кэш сохраняется рядом с файлом библиотеки.
+ */
+public class MetadataCache {
+    private static final String CACHE_FILE = "library_metadata.cache";
+    private static final int MAGIC = 0x45424D43; // "EBMC"
+    private static final short VERSION = 1;
+
+    private static class Entry {
+        final long size;
+        final long modified;
+        final byte[] book;
+
+        Entry(long size, long modified, byte[] book) {
+            this.size = size;
+            this.modified = modified;
+            this.book = book;
+        }
+    }
+
+    // Файл кэша в папке библиотеки
+    private final Path file;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean modified;
+
+    // Пустой кэш, который сохраняется в указанную папку
+    public MetadataCache(Path directory) {
+        file = directory.resolve(CACHE_FILE);
+    }
+
+    // Кэш, сохранённый в папке библиотеки
+    public static MetadataCache load(Path directory) {
+        MetadataCache cache = new MetadataCache(directory);
+        Path file = cache.file;
+        if (!Files.exists(file)) {
+            return cache;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                return cache;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                byte[] book = new byte[in.readInt()];
+                in.readFully(book);
+                cache.entries.put(path, new Entry(size, modified, book));
+            }
+        } catch (IOException e) {
+            // Повреждённый кэш просто перестраивается
+            System.err.println("Кэш метаданных не прочитан: " + e.getMessage());
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    // Книга из кэша, если файл не менялся с момента разбора; иначе null
+    public Book get(Path file) throws IOException {
+        Entry entry = currentEntry(file);
+        if (entry == null) {
+            return null;
+        }
+        return LibraryJournal.readBook(new DataInputStream(new ByteArrayInputStream(entry.book)));
+    }
+
+    // Есть ли разбор файла с теми же размером и временем изменения
+    public boolean isCurrent(Path file) throws IOException {
+        return currentEntry(file) != null;
+    }
+
+    private Entry currentEntry(Path file) throws IOException {
+        Entry entry = entries.get(file.toAbsolutePath().toString());
+        if (entry == null) {
+            return null;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (attributes.size() != entry.size || attributes.lastModifiedTime().toMillis() != entry.modified) {
+            return null;
+        }
+        return entry;
+    }
+
+    public void put(Path file, Book book) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        LibraryJournal.writeBook(new DataOutputStream(buffer), book);
+        entries.put(file.toAbsolutePath().toString(),
+                new Entry(attributes.size(), attributes.lastModifiedTime().toMillis(), buffer.toByteArray()));
+        modified = true;
+    }
+
+    // Разбор файла с использованием кэша
+    public Book extract(Path file) throws IOException {
+        Book book = get(file);
+        if (book == null) {
+            book = BookMetadataExtractor.extract(file);
+            book.setContentHash(ContentHasher.hash(file));
+            put(file, book);
+        }
+        return book;
+    }
+
+    public void save() throws IOException {
+        if (!modified) {
+            return;
+        }
+        modified = false;
+        Path target = file;
+        Path temp = Paths.get(file + ".tmp");
+        Map<String, Entry> copy = new HashMap<>(entries);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(copy.size());
+            for (Map.Entry<String, Entry> item : copy.entrySet()) {
+                out.writeUTF(item.getKey());
+                out.writeLong(item.getValue().size);
+                out.writeLong(item.getValue().modified);
+                out.writeInt(item.getValue().book.length);
+                out.write(item.getValue().book);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,146 @@
+// QueryDialog.java - диалог расширенного поиска по нескольким условиям
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+public class QueryDialog extends JDialog {
+    private JTextField titleField;
+    private JTextField authorField;
+    private JComboBox<String> genreCombo;
+    private JTextField dateFromField;
+    private JTextField dateToField;
+    private JTextField minRatingField;
+    private JTextField maxRatingField;
+    private JTextField minPagesField;
+    private JTextField maxPagesField;
+
+    private BookQuery query;
+
+    public QueryDialog(Frame parent, List<String> genres) {
+        super(parent, "Расширенный поиск", true);
+        initComponents(genres);
+        pack();
+        setLocationRelativeTo(parent);
+    }
+
+    private void initComponents(List<String> genres) {
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+
+        JPanel formPanel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.insets = new Insets(5, 5, 5, 5);
+
+        titleField = new JTextField(20);
+        addRow(formPanel, gbc, 0, "Название содержит:", titleField);
+        authorField = new JTextField(20);
+        addRow(formPanel, gbc, 1, "Автор содержит:", authorField);
+
+        genreCombo = new JComboBox<>();
+        genreCombo.addItem("");
+        for (String genre : genres) {
+            genreCombo.addItem(genre);
+        }
+        addRow(formPanel, gbc, 2, "Жанр:", genreCombo);
+
+        dateFromField = new JTextField(10);
+        dateToField = new JTextField(10);
+        addRow(formPanel, gbc, 3, "Дата (дд.мм.гггг):", rangePanel(dateFromField, dateToField));
+        minRatingField = new JTextField(5);
+        maxRatingField = new JTextField(5);
+        addRow(formPanel, gbc, 4, "Рейтинг:", rangePanel(minRatingField, maxRatingField));
+        minPagesField = new JTextField(5);
+        maxPagesField = new JTextField(5);
+        addRow(formPanel, gbc, 5, "Страниц:", rangePanel(minPagesField, maxPagesField));
+
+        mainPanel.add(formPanel, BorderLayout.CENTER);
+
+        // Панель кнопок
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        JButton searchButton = new JButton("Найти");
+        searchButton.addActionListener(e -> buildQuery());
+        JButton cancelButton = new JButton("Отмена");
+        cancelButton.addActionListener(e -> dispose());
+
+        buttonPanel.add(searchButton);
+        buttonPanel.add(cancelButton);
+        mainPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        add(mainPanel);
+        getRootPane().setDefaultButton(searchButton);
+    }
+
+    private static void addRow(JPanel panel, GridBagConstraints gbc, int row, String label, JComponent field) {
+        gbc.gridx = 0; gbc.gridy = row; gbc.weightx = 0;
+        panel.add(new JLabel(label), gbc);
+        gbc.gridx = 1; gbc.weightx = 1.0;
+        panel.add(field, gbc);
+    }
+
+    // Поля "от" и "до" в одной строке
+    private static JPanel rangePanel(JTextField from, JTextField to) {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        panel.add(new JLabel("от"));
+        panel.add(from);
+        panel.add(new JLabel("до"));
+        panel.add(to);
+        return panel;
+    }
+
+    private void buildQuery() {
+        BookQuery result = new BookQuery()
+                .title(titleField.getText().trim())
+                .author(authorField.getText().trim())
+                .genre(genreCombo.getSelectedItem() != null ? genreCombo.getSelectedItem().toString().trim() : "");
+
+        // Парсинг диапазонов; пустое поле означает отсутствие границы
+        try {
+            result.publishedBetween(parseDate(dateFromField), parseDate(dateToField));
+        } catch (DateTimeParseException e) {
+            showError("Введите дату в формате дд.мм.гггг");
+            return;
+        }
+        try {
+            if (!minRatingField.getText().trim().isEmpty()) {
+                result.minRating(Double.parseDouble(minRatingField.getText().trim().replace(',', '.')));
+            }
+            if (!maxRatingField.getText().trim().isEmpty()) {
+                result.maxRating(Double.parseDouble(maxRatingField.getText().trim().replace(',', '.')));
+            }
+        } catch (NumberFormatException e) {
+            showError("Введите корректный рейтинг");
+            return;
+        }
+        try {
+            if (!minPagesField.getText().trim().isEmpty()) {
+                result.minPages(Integer.parseInt(minPagesField.getText().trim()));
+            }
+            if (!maxPagesField.getText().trim().isEmpty()) {
+                result.maxPages(Integer.parseInt(maxPagesField.getText().trim()));
+            }
+        } catch (NumberFormatException e) {
+            showError("Введите корректное количество страниц");
+            return;
+        }
+
+        query = result;
+        dispose();
+    }
+
+    private static LocalDate parseDate(JTextField field) {
+        String text = field.getText().trim();
+        return text.isEmpty() ? null : LocalDate.parse(text, Book.DATE_FORMAT);
+    }
+
+    private void showError(String message) {
+        JOptionPane.showMessageDialog(this, message, "Ошибка", JOptionPane.ERROR_MESSAGE);
+    }
+
+    // Запрос или null, если поиск отменён
+    public BookQuery getQuery() {
+        return query;
+    }
+}
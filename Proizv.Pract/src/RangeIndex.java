@@ -0,0 +1,67 @@
+// RangeIndex.java - упорядоченный индекс числового поля книги для запросов по диапазону
+
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Значения поля хранятся в отсортированном дереве, для каждого значения -
+ * список книг. Книги с отсутствующим значением (NaN) в индекс не попадают.
+ */
+public class RangeIndex {
+    private final ToDoubleFunction<Book> field;
+    private final TreeMap<Double, PostingList> postings = new TreeMap<>();
+
+    public RangeIndex(ToDoubleFunction<Book> field) {
+        this.field = field;
+    }
+
+    public void add(int id, Book book) {
+        double value = field.applyAsDouble(book);
+        if (Double.isNaN(value)) {
+            return;
+        }
+        postings.computeIfAbsent(value, k -> new PostingList()).add(id);
+    }
+
+    // Удаление по значению из прежней версии книги: отдельная карта значений не хранится
+    public void remove(int id, Book book) {
+        double value = field.applyAsDouble(book);
+        PostingList list = postings.get(value);
+        if (list != null && list.remove(id) && list.isEmpty()) {
+            postings.remove(value);
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+    }
+
+    // Число книг со значением в [from, to]
+    public int count(double from, double to) {
+        int count = 0;
+        for (PostingList list : range(from, to).values()) {
+            count += list.size();
+        }
+        return count;
+    }
+
+    // Книги со значением в [from, to] по возрастанию идентификаторов
+    public int[] search(double from, double to) {
+        int[] result = new int[count(from, to)];
+        int size = 0;
+        for (PostingList list : range(from, to).values()) {
+            int[] ids = list.toArray();
+            System.arraycopy(ids, 0, result, size, ids.length);
+            size += ids.length;
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    private NavigableMap<Double, PostingList> range(double from, double to) {
+        if (from > to) {
+            return Collections.emptyNavigableMap();
+        }
+        return postings.subMap(from, true, to, true);
+    }
+}
@@ -0,0 +1,26 @@
+// StringPool.java - словарь общих экземпляров повторяющихся строк
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Для каждой различной строки хранится один экземпляр, и равные строки
+ * заменяются ссылкой на него. В отличие от String.intern() словарь
+ * принадлежит владельцу и освобождается вместе с ним.
+ */
+public class StringPool {
+    private final Map<String, String> strings = new HashMap<>();
+
+    // Общий экземпляр строки, равной данной
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = strings.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    public int size() {
+        return strings.size();
+    }
+}
@@ -0,0 +1,80 @@
+// TextAnalyzer.java - разбиение текста на термы для полнотекстового поиска
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Текст разбивается на слова из букв и цифр, приводится к нижнему регистру
+ * (ё считается за е), а от слова отрезается типичное окончание русского или
+ * английского языка. Это не полноценный стеммер: его задача - чтобы "книга",
+ * "книги" и "книгой" давали один терм.
+ */
+public class TextAnalyzer {
+    private static final int MIN_TERM_LENGTH = 2;
+    // Часть слова, которая остаётся после отрезания окончания
+    private static final int MIN_STEM_LENGTH = 3;
+
+    // Окончания по убыванию длины: отрезается самое длинное подходящее
+    private static final String[] RUSSIAN_ENDINGS = {
+            "ениями", "ениях", "иями", "ение", "ения", "ений", "ться", "ется", "ются", "ешься",
+            "ого", "его", "ому", "ему", "ыми", "ими", "ами", "ями", "ией", "ах", "ях", "ов", "ев",
+            "ей", "ий", "ый", "ой", "ая", "яя", "ое", "ее", "ые", "ие", "ых", "их", "ую", "юю",
+            "ом", "ем", "ам", "ям", "ию", "ия", "ть", "ет", "ут", "ют", "ит", "ат", "ят", "ал", "ил",
+            "ла", "ли", "ло",
+            "а", "я", "о", "е", "ы", "и", "у", "ю", "ь", "й"
+    };
+    private static final String[] ENGLISH_ENDINGS = {
+            "ational", "ations", "ation", "ness", "ment", "ings", "ing", "edly", "ies", "ed", "es", "ly", "s"
+    };
+
+    // Термы текста по порядку (с повторами)
+    public static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String word : words(text)) {
+            if (word.length() >= MIN_TERM_LENGTH) {
+                terms.add(stem(word));
+            }
+        }
+        return terms;
+    }
+
+    // Слова текста в нижнем регистре, без отрезания окончаний
+    public static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(fold(c));
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+
+    private static char fold(char c) {
+        c = Character.toLowerCase(c);
+        return c == 'ё' ? 'е' : c;
+    }
+
+    static String stem(String word) {
+        String[] endings = isCyrillic(word.charAt(word.length() - 1)) ? RUSSIAN_ENDINGS : ENGLISH_ENDINGS;
+        for (String ending : endings) {
+            if (word.endsWith(ending) && word.length() - ending.length() >= MIN_STEM_LENGTH) {
+                String stem = word.substring(0, word.length() - ending.length());
+                // "stories" -> "story"
+                return ending.equals("ies") ? stem + "y" : stem;
+            }
+        }
+        return word;
+    }
+
+    private static boolean isCyrillic(char c) {
+        return Character.UnicodeBlock.of(c) == Character.UnicodeBlock.CYRILLIC;
+    }
+}
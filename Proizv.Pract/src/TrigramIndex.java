@@ -0,0 +1,112 @@
+// TrigramIndex.java - инвертированный индекс по триграммам для поиска подстроки
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Индекс одного текстового поля книги. Для каждой триграммы нормализованного
+ * значения хранится отсортированный список идентификаторов книг. Запрос
+ * пересекает списки своих триграмм и проверяет только найденных кандидатов.
+ */
+public class TrigramIndex {
+    private final Function<Book, String> field;
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<Integer, String> normalized = new HashMap<>();
+
+    public TrigramIndex(Function<Book, String> field) {
+        this.field = field;
+    }
+
+    public void add(int id, Book book) {
+        String value = normalize(field.apply(book));
+        normalized.put(id, value);
+        for (long trigram : trigrams(value)) {
+            postings.computeIfAbsent(trigram, k -> new PostingList()).add(id);
+        }
+    }
+
+    public void remove(int id) {
+        String value = normalized.remove(id);
+        if (value == null) {
+            return;
+        }
+        for (long trigram : trigrams(value)) {
+            PostingList list = postings.get(trigram);
+            if (list != null) {
+                list.remove(id);
+                if (list.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        normalized.clear();
+    }
+
+    // Идентификаторы книг, поле которых содержит запрос (по возрастанию)
+    public int[] search(String query) {
+        String q = normalize(query);
+        if (q.length() < 3) {
+            // Короткий запрос не даёт триграмм - проверяем уже нормализованные значения
+            int[] result = new int[normalized.size()];
+            int count = 0;
+            for (Map.Entry<Integer, String> entry : normalized.entrySet()) {
+                if (entry.getValue().contains(q)) {
+                    result[count++] = entry.getKey();
+                }
+            }
+            result = Arrays.copyOf(result, count);
+            Arrays.sort(result);
+            return result;
+        }
+
+        List<PostingList> lists = new ArrayList<>();
+        for (long trigram : trigrams(q)) {
+            PostingList list = postings.get(trigram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+
+        int[] candidates = PostingList.intersect(lists);
+        int count = 0;
+        for (int id : candidates) {
+            // Совпадение всех триграмм ещё не означает вхождение подстроки
+            if (normalized.get(id).contains(q)) {
+                candidates[count++] = id;
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    // Верхняя оценка числа найденных книг: самый короткий список триграмм запроса
+    public int estimate(String query) {
+        String q = normalize(query);
+        if (q.length() < 3) {
+            return normalized.size();
+        }
+        int estimate = normalized.size();
+        for (long trigram : trigrams(q)) {
+            PostingList list = postings.get(trigram);
+            estimate = Math.min(estimate, list != null ? list.size() : 0);
+        }
+        return estimate;
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    // Различные триграммы строки, упакованные в long (3 x 16 бит)
+    private static Set<Long> trigrams(String value) {
+        Set<Long> result = new HashSet<>();
+        for (int i = 0; i + 3 <= value.length(); i++) {
+            result.add(((long) value.charAt(i) << 32) | ((long) value.charAt(i + 1) << 16) | value.charAt(i + 2));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,59 @@
+// AllTests.java - запуск всех тестов
+//
+// Сборка и запуск из папки Proizv.Pract:
+//   javac -encoding UTF-8 -d out/test src/*.java test/*.java
+//   java -cp out/test AllTests
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+public class AllTests {
+    private static final List<Class<?>> TESTS = Arrays.asList(
+            LibraryJournalTest.class,
+            LibraryBatchTest.class,
+            ContentHashTest.class,
+            BookColumnsTest.class,
+            BookTableModelTest.class,
+            MetadataRefreshTest.class,
+            FullTextPersistenceTest.class,
+            LibraryServerTest.class,
+            LibraryFileFormatTest.class,
+            TrigramIndexTest.class,
+            GenreDictionaryTest.class,
+            BookIdTest.class,
+            LibraryConcurrencyTest.class,
+            QueryPlannerTest.class,
+            DescriptionStoreTest.class,
+            LibraryExporterTest.class
+    );
+
+    public static void main(String[] args) throws Exception {
+        int passed = 0;
+        int failed = 0;
+        for (Class<?> testClass : TESTS) {
+            Method[] methods = testClass.getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                if (!method.getName().startsWith("test") || !Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                String name = testClass.getSimpleName() + "." + method.getName();
+                try {
+                    method.invoke(null);
+                    passed++;
+                    System.out.println("OK    " + name);
+                } catch (InvocationTargetException e) {
+                    failed++;
+                    System.out.println("FAIL  " + name + ": " + e.getCause());
+                    e.getCause().printStackTrace(System.out);
+                }
+            }
+        }
+        System.out.println("Пройдено: " + passed + ", не пройдено: " + failed);
+        System.exit(failed == 0 ? 0 : 1);
+    }
+}
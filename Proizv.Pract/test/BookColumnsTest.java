@@ -0,0 +1,85 @@
+// BookColumnsTest.java - книга библиотеки как представление столбцов BookColumns
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class BookColumnsTest {
+
+    // Удалённая книга сохраняет свои значения, хотя её ячейка освобождена
+    static void testRemovedBookKeepsValues() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        Book book = new Book("Книга", "Автор", "Роман", LocalDate.of(1999, 5, 17), "", 321, 3.5, "");
+        library.addBook(book);
+        library.removeBook(book.getId());
+
+        TestSupport.checkEquals(LocalDate.of(1999, 5, 17), book.getPublicationDate(), "дата удалённой книги");
+        TestSupport.checkEquals(321, book.getPages(), "страницы удалённой книги");
+        TestSupport.checkEquals(3.5, book.getRating(), "рейтинг удалённой книги");
+        TestSupport.checkEquals(0, library.query(new BookQuery().minPages(0)).size(), "удалённая книга в запросе");
+        library.close();
+    }
+
+    // Новая версия книги читает новые значения, прежняя - свои
+    static void testUpdateReplacesValues() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        Book previous = new Book("Книга", "Автор", "Роман", null, "", 100, 2.0, "");
+        library.addBook(previous);
+        library.updateBook(previous.getId(), new Book("Книга", "Автор", "Роман", LocalDate.of(2020, 1, 1), "", 200, 5.0, ""));
+
+        Book current = library.getBook(previous.getId());
+        TestSupport.checkEquals(200, current.getPages(), "страницы новой версии");
+        TestSupport.checkEquals(LocalDate.of(2020, 1, 1), current.getPublicationDate(), "дата новой версии");
+        TestSupport.checkEquals(100, previous.getPages(), "страницы прежней версии");
+        TestSupport.check(previous.getPublicationDate() == null, "дата прежней версии");
+        TestSupport.checkEquals(200L, library.getStats().getTotalPages(), "статистика после обновления");
+        library.close();
+    }
+
+    // Изменение полей книги не меняет данных библиотеки - для этого есть updateBook
+    static void testSetterDoesNotChangeLibrary() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        Book book = TestSupport.book("Книга", "Автор", "Роман");
+        library.addBook(book);
+        book.setPages(999);
+
+        TestSupport.checkEquals(999, book.getPages(), "страницы после изменения");
+        TestSupport.checkEquals(0, library.query(new BookQuery().minPages(500)).size(), "запрос после изменения книги");
+        TestSupport.checkEquals(100L, library.getStats().getTotalPages(), "статистика после изменения книги");
+        library.close();
+    }
+
+    // Фильтры и сортировки по столбцам совпадают с проверкой каждой книги,
+    // в том числе после удалений, которые оставляют пустые ячейки
+    static void testColumnsMatchBooks() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            LocalDate date = i % 7 == 0 ? null : LocalDate.of(1900 + i % 120, 1 + i % 12, 1 + i % 28);
+            books.add(new Book("Книга " + i, "Автор " + i % 13, "Жанр " + i % 5, date, "", i * 37 % 800, i % 51 / 10.0, ""));
+        }
+        library.addBooks(books);
+        for (int i = 0; i < 300; i += 3) {
+            library.removeBook(books.get(i).getId());
+        }
+        List<Book> all = library.getAllBooks();
+
+        BookQuery query = new BookQuery().genre("Жанр 2").publishedBetween(LocalDate.of(1950, 1, 1), null)
+                .minRating(1.5).maxPages(600);
+        List<Book> expected = new ArrayList<>();
+        for (Book book : all) {
+            if (query.matchesGenre(book) && query.matchesDate(book) && query.matchesRating(book) && query.matchesPages(book)) {
+                expected.add(book);
+            }
+        }
+        TestSupport.check(!expected.isEmpty(), "запрос должен что-то находить");
+        TestSupport.checkEquals(TestSupport.ids(expected), TestSupport.ids(library.query(query)), "результат запроса");
+
+        for (BookOrder order : new BookOrder[] {BookOrder.DATE, BookOrder.PAGES}) {
+            List<Book> sorted = new ArrayList<>(all);
+            sorted.sort(order.comparator());
+            TestSupport.checkEquals(TestSupport.ids(sorted), TestSupport.ids(library.getAllBooks(order)), "порядок " + order);
+        }
+        library.close();
+    }
+}
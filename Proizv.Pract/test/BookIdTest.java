@@ -0,0 +1,56 @@
+// BookIdTest.java - постоянные идентификаторы книг
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+public class BookIdTest {
+
+    // Идентификаторы выдаются по порядку и не меняются при обновлении
+    static void testIdsAreStable() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        Book first = TestSupport.book("Первая", "Автор", "Роман");
+        Book second = TestSupport.book("Вторая", "Автор", "Роман");
+        library.addBook(first);
+        library.addBook(second);
+        TestSupport.checkEquals(Arrays.asList(1, 2), Arrays.asList(first.getId(), second.getId()), "идентификаторы");
+
+        Book edited = TestSupport.book("Первая, новая", "Автор", "Роман");
+        TestSupport.check(library.updateBook(first.getId(), edited), "книга не обновлена");
+        TestSupport.checkEquals(first.getId(), edited.getId(), "идентификатор новой версии");
+        TestSupport.check(library.getBook(1) == edited, "по идентификатору находится прежняя версия");
+        TestSupport.check(!library.updateBook(99, TestSupport.book("Нет", "Автор", "Роман")), "обновлена несуществующая книга");
+        library.close();
+    }
+
+    // Устаревшая версия книги не удаляет книгу, которую уже заменили
+    static void testRemoveByStaleBook() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        Book book = TestSupport.book("Книга", "Автор", "Роман");
+        library.addBook(book);
+        library.updateBook(book.getId(), TestSupport.book("Книга 2", "Автор", "Роман"));
+
+        TestSupport.check(!library.removeBook(book), "удалена по устаревшей версии");
+        TestSupport.check(library.getBook(book.getId()) != null, "книга пропала");
+        TestSupport.check(library.removeBook(book.getId()), "книга не удалена по идентификатору");
+        TestSupport.check(!library.removeBook(book.getId()), "повторное удаление");
+        library.close();
+    }
+
+    // После перезапуска идентификаторы удалённых книг не выдаются снова
+    static void testIdsNotReusedAfterReopen() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Library library = new Library(dir, false);
+        library.addBook(TestSupport.book("Первая", "Автор", "Роман"));
+        Book last = TestSupport.book("Последняя", "Автор", "Роман");
+        library.addBook(last);
+        library.removeBook(last.getId());
+        library.close();
+
+        Library reopened = new Library(dir, false);
+        Book added = TestSupport.book("Новая", "Автор", "Роман");
+        reopened.addBook(added);
+        TestSupport.checkEquals(last.getId() + 1, added.getId(), "идентификатор после перезапуска");
+        TestSupport.checkEquals("Первая", reopened.getBook(1).getTitle(), "книга по идентификатору после перезапуска");
+        reopened.close();
+    }
+}
@@ -0,0 +1,115 @@
+// BookTableModelTest.java - события строк модели таблицы после изменений библиотеки
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BookTableModelTest {
+
+    // Изменение книги без смены её места - событие обновления одной строки
+    static void testEditFiresRowUpdate() throws Exception {
+        Library library = library("Альфа", "Бета", "Гамма");
+        BookTableModel model = new BookTableModel(library);
+        List<String> events = listen(model);
+        Book beta = model.getBookAt(1);
+        library.updateBook(beta.getId(), TestSupport.book("Бета", "Другой автор", "Роман"));
+        model.refresh();
+
+        TestSupport.checkEquals(Arrays.asList("обновлены 1-1"), events, "события");
+        TestSupport.checkEquals("Другой автор", model.getBookAt(1).getAuthor(), "строка после изменения");
+        library.close();
+    }
+
+    // Добавление и удаление в отсортированной таблице - вставка и удаление одной строки
+    static void testAddAndRemoveFireRowEvents() throws Exception {
+        Library library = library("Альфа", "Гамма", "Дельта");
+        BookTableModel model = new BookTableModel(library);
+        model.sortBy(0);
+        List<String> events = listen(model);
+        Book beta = TestSupport.book("Бета", "Автор", "Роман");
+        library.addBook(beta);
+        model.refresh();
+        library.removeBook(beta.getId());
+        model.refresh();
+
+        TestSupport.checkEquals(Arrays.asList("вставлены 1-1", "удалены 1-1"), events, "события");
+        library.close();
+    }
+
+    // При обратной сортировке номера строк в событиях считаются с конца
+    static void testDescendingRowNumbers() throws Exception {
+        Library library = library("Альфа", "Бета", "Гамма", "Дельта");
+        BookTableModel model = new BookTableModel(library);
+        model.sortBy(0);
+        model.sortBy(0);
+        List<String> events = listen(model);
+        library.removeBook(model.getBookAt(0).getId());
+        model.refresh();
+
+        TestSupport.checkEquals(Arrays.asList("удалены 0-0"), events, "события");
+        TestSupport.checkEquals("Гамма", model.getBookAt(0).getTitle(), "первая строка");
+        library.close();
+    }
+
+    // Книга, сменившая место при сортировке, удаляется из старой строки и вставляется в новую
+    static void testMovedBookFiresDeleteAndInsert() throws Exception {
+        Library library = library("Альфа", "Бета", "Гамма", "Дельта");
+        BookTableModel model = new BookTableModel(library);
+        model.sortBy(0);
+        List<String> events = listen(model);
+        library.updateBook(model.getBookAt(0).getId(), TestSupport.book("Яблоко", "Автор", "Роман"));
+        model.refresh();
+
+        TestSupport.checkEquals(Arrays.asList("удалены 0-0", "вставлены 3-3"), events, "события");
+        TestSupport.checkEquals("Яблоко", model.getBookAt(3).getTitle(), "новое место книги");
+        library.close();
+    }
+
+    // Повторный поиск добавляет ставшую подходящей книгу одной вставкой
+    static void testRepeatedSearchInsertsNewMatch() throws Exception {
+        Library library = library("Война и мир", "Анна Каренина", "Мир приключений");
+        BookTableModel model = new BookTableModel(library);
+        model.showBooks(library.searchByTitle("мир"));
+        List<String> events = listen(model);
+        library.addBook(TestSupport.book("Новый мир", "Автор", "Роман"));
+        model.refresh();
+        model.showBooks(library.searchByTitle("мир"));
+
+        TestSupport.checkEquals(Arrays.asList("вставлены 2-2"), events, "события");
+        TestSupport.checkEquals(3, model.getRowCount(), "строк после поиска");
+        library.close();
+    }
+
+    // Дата, страницы и рейтинг отдаются готовыми строками, повторная отрисовка не создаёт новых
+    static void testNumericCellsAreCachedText() throws Exception {
+        Library library = library("Альфа");
+        BookTableModel model = new BookTableModel(library);
+        TestSupport.checkEquals("01.01.2000", model.getValueAt(0, 3), "дата");
+        TestSupport.checkEquals("100", model.getValueAt(0, 4), "страницы");
+        TestSupport.checkEquals(String.format("%.1f", 4.0), model.getValueAt(0, 5), "рейтинг");
+        for (int column = 3; column <= 5; column++) {
+            TestSupport.check(model.getValueAt(0, column) == model.getValueAt(0, column),
+                    "новый объект при повторной отрисовке колонки " + column);
+        }
+        library.close();
+    }
+
+    private static Library library(String... titles) throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        for (String title : titles) {
+            library.addBook(TestSupport.book(title, "Автор", "Роман"));
+        }
+        return library;
+    }
+
+    private static List<String> listen(BookTableModel model) {
+        List<String> events = new ArrayList<>();
+        model.addTableModelListener(e -> {
+            String type = e.getType() == TableModelEvent.INSERT ? "вставлены"
+                    : e.getType() == TableModelEvent.DELETE ? "удалены" : "обновлены";
+            events.add(e.getLastRow() == Integer.MAX_VALUE ? "вся таблица" : type + " " + e.getFirstRow() + "-" + e.getLastRow());
+        });
+        return events;
+    }
+}
@@ -0,0 +1,68 @@
+// ContentHashTest.java - поиск дубликатов по хэшу содержимого
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ContentHashTest {
+    private static final String FB2 = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><FictionBook><description><title-info>"
+            + "<genre>sf</genre><author><first-name>Иван</first-name><last-name>Петров</last-name></author>"
+            + "<book-title>Книга для импорта</book-title></title-info></description></FictionBook>";
+
+    // Отредактированная книга остаётся известной по хэшу: повторный импорт копии файла не создаёт дубликат
+    static void testEditKeepsHashForReimport() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Path books = Files.createDirectory(dir.resolve("books"));
+        Files.write(books.resolve("book.fb2"), FB2.getBytes(StandardCharsets.UTF_8));
+
+        Library library = new Library(dir, false);
+        TestSupport.checkEquals(1, importFolder(library, books), "первый импорт");
+        Book imported = library.getAllBooks().get(0);
+        String hash = imported.getContentHash();
+        TestSupport.check(hash != null, "импортированная книга без хэша");
+
+        // Так книгу сохраняет диалог редактирования: новый объект с тем же файлом и без хэша
+        Book edited = new Book("Исправленное название", imported.getAuthor(), imported.getGenre(),
+                imported.getPublicationDate(), imported.getFilePath(), 120, 5.0, "Новое описание");
+        library.updateBook(imported.getId(), edited);
+        TestSupport.checkEquals(hash, library.getBook(imported.getId()).getContentHash(), "хэш после редактирования");
+        library.close();
+
+        Library reopened = new Library(dir, false);
+        TestSupport.checkEquals(hash, reopened.getBook(imported.getId()).getContentHash(), "хэш после перезапуска");
+        Files.copy(books.resolve("book.fb2"), books.resolve("copy.fb2"));
+        TestSupport.checkEquals(0, importFolder(reopened, books), "повторный импорт добавил дубликат");
+        TestSupport.checkEquals(1, reopened.getAllBooks().size(), "число книг");
+        reopened.close();
+    }
+
+    // Книга, перенесённая на другой файл, хэш прежнего файла не наследует
+    static void testChangedFileDropsHash() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        Book book = new Book("Книга", "Автор", "Роман", null, "/books/a.fb2", 10, 4.0, "");
+        book.setContentHash("abc");
+        library.addBook(book);
+        library.updateBook(book.getId(), new Book("Книга", "Автор", "Роман", null, "/books/b.fb2", 10, 4.0, ""));
+        TestSupport.check(library.getBook(book.getId()).getContentHash() == null, "хэш прежнего файла сохранился");
+        TestSupport.check(library.findByContentHash("abc") == null, "книга находится по хэшу прежнего файла");
+        library.close();
+    }
+
+    // Импорт так же, как в MainFrame: известные пути пропускаются, пачка добавляется без дубликатов
+    private static int importFolder(Library library, Path folder) throws Exception {
+        List<Book> added = new ArrayList<>();
+        BulkImporter.importFiles(BulkImporter.scan(folder), null,
+                file -> library.containsFile(file.toAbsolutePath().toString()),
+                batch -> {
+                    for (Book book : batch) {
+                        if (library.addBookIfUnique(book)) {
+                            added.add(book);
+                        }
+                    }
+                },
+                done -> { }, () -> false);
+        return added.size();
+    }
+}
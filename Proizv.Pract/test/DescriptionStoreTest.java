@@ -0,0 +1,108 @@
+// DescriptionStoreTest.java - отложенные описания при замене файла библиотеки новым снимком
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class DescriptionStoreTest {
+
+    // После сжатия журнала описания читаются из нового файла, а прежний файл не остаётся открытым
+    static void testCompactionSwitchesToNewFile() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Path dataFile = dir.resolve("library_data.dat");
+        List<Book> saved = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            Book book = TestSupport.book("Книга " + i, "Автор", "Роман");
+            book.setId(i);
+            saved.add(book);
+        }
+        LibraryFileFormat.write(dataFile, saved, 0);
+
+        Library library = new Library(dir, true);
+        Book removed = library.getBook(1);
+        library.removeBook(1);
+        // Журнал больше порога сжатия: в фоне пишется новый снимок
+        String filler = "описание ".repeat(30_000);
+        for (int i = 0; i < 20; i++) {
+            library.addBook(new Book("Большая " + i, "Автор", "Роман", null, "", 1, 1.0, filler));
+        }
+        awaitSnapshot(dataFile);
+
+        TestSupport.checkEquals("Описание Книга 1", removed.getDescription(), "описание удалённой книги");
+        TestSupport.checkEquals("Описание Книга 2", library.getBook(2).getDescription(), "описание после сжатия");
+        TestSupport.checkEquals("Описание Книга 3", library.getBook(3).getDescription(), "описание после сжатия");
+        TestSupport.checkEquals(filler, library.getBook(5).getDescription(), "описание новой книги");
+        TestSupport.checkEquals(0L, openFiles(dir, true), "открыт заменённый файл библиотеки");
+
+        library.close();
+        TestSupport.checkEquals(0L, openFiles(dir, false), "файлы библиотеки открыты после закрытия");
+        Library reopened = new Library(dir, true);
+        TestSupport.checkEquals(Arrays.asList(2, 3), TestSupport.ids(reopened.getAllBooks()).subList(0, 2),
+                "книги после перезапуска");
+        TestSupport.checkEquals("Описание Книга 2", reopened.getBook(2).getDescription(), "описание после перезапуска");
+        reopened.close();
+    }
+
+    // Прерванное чтение (отмена поиска) не закрывает файл описаний для остальных
+    static void testInterruptedReadKeepsStoreOpen() throws Exception {
+        Path dir = TestSupport.tempDir();
+        List<Book> saved = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            Book book = TestSupport.book("Книга " + i, "Автор", "Роман");
+            book.setId(i);
+            saved.add(book);
+        }
+        LibraryFileFormat.write(dir.resolve("library_data.dat"), saved, 0);
+
+        Library library = new Library(dir, true);
+        Thread.currentThread().interrupt();
+        try {
+            library.getBook(1).getDescription();
+        } finally {
+            Thread.interrupted();
+        }
+        TestSupport.checkEquals("Описание Книга 2", library.getBook(2).getDescription(), "описание после прерывания");
+        library.close();
+    }
+
+    // Ожидание, пока фоновое сжатие запишет новый снимок
+    private static void awaitSnapshot(Path dataFile) throws Exception {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (LibraryFileFormat.read(dataFile).seq == 0) {
+            TestSupport.check(System.currentTimeMillis() < deadline, "снимок не записан");
+            Thread.sleep(20);
+        }
+    }
+
+    /*
+     * Число открытых процессом файлов в папке (только удалённых, если deleted).
+     * Открытые файлы видны в /proc/self/fd; в других системах проверка пропускается.
+     */
+    private static long openFiles(Path dir, boolean deleted) throws IOException {
+        Path fds = Paths.get("/proc/self/fd");
+        if (!Files.isDirectory(fds)) {
+            return 0;
+        }
+        String prefix = dir.toRealPath().toString();
+        long count = 0;
+        try (Stream<Path> links = Files.list(fds)) {
+            for (Path link : (Iterable<Path>) links::iterator) {
+                String target;
+                try {
+                    target = Files.readSymbolicLink(link).toString();
+                } catch (IOException e) {
+                    continue;
+                }
+                if (target.startsWith(prefix) && (!deleted || target.endsWith("(deleted)"))) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
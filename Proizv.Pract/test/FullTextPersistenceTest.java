@@ -0,0 +1,65 @@
+// FullTextPersistenceTest.java - сохранение полнотекстового индекса при закрытии библиотеки
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+public class FullTextPersistenceTest {
+
+    // Закрытие без поиска по описаниям не строит индекс
+    static void testCloseDoesNotBuildIndex() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Library library = new Library(dir, false);
+        library.addBook(TestSupport.book("Книга", "Автор", "Роман"));
+        library.close();
+        TestSupport.check(!Files.exists(dir.resolve("library_data.fts")), "индекс построен при закрытии");
+    }
+
+    // Сохранённый раньше индекс дополняется книгами, изменёнными после его сохранения
+    static void testSavedIndexCatchesUpWithJournal() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Path file = dir.resolve("library_data.fts");
+        Library library = new Library(dir, false);
+        library.addBook(book("Первая", "старинный манускрипт"));
+        Book second = book("Вторая", "морское путешествие");
+        library.addBook(second);
+        TestSupport.checkEquals(1, library.searchFullText("манускрипт", 10).size(), "поиск до сохранения");
+        library.close();
+        long savedSeq = FullTextIndex.readSeq(file);
+        TestSupport.check(savedSeq > 0, "индекс не сохранён");
+
+        Library changed = new Library(dir, false);
+        changed.addBook(book("Третья", "горный перевал"));
+        changed.updateBook(second.getId(), book("Вторая", "пустынный оазис"));
+        changed.close();
+        TestSupport.checkEquals(savedSeq, FullTextIndex.readSeq(file), "индекс перезаписан без поиска");
+
+        Library reopened = new Library(dir, false);
+        TestSupport.checkEquals(1, reopened.searchFullText("перевал", 10).size(), "добавленная книга");
+        TestSupport.checkEquals(1, reopened.searchFullText("оазис", 10).size(), "изменённая книга");
+        TestSupport.checkEquals(0, reopened.searchFullText("путешествие", 10).size(), "прежнее описание");
+        TestSupport.checkEquals(1, reopened.searchFullText("манускрипт", 10).size(), "книга из сохранённого индекса");
+        reopened.close();
+    }
+
+    // Терм длиннее 64 КБ (writeUTF такие не записывает) сохраняется и загружается
+    static void testLongTermIsSaved() throws Exception {
+        Path dir = TestSupport.tempDir();
+        String longTerm = "слово".repeat(20_000);
+        Library library = new Library(dir, false);
+        library.addBook(book("Первая", "начало " + longTerm + " конец"));
+        TestSupport.checkEquals(1, library.searchFullText("конец", 10).size(), "поиск до сохранения");
+        library.close();
+        TestSupport.check(FullTextIndex.readSeq(dir.resolve("library_data.fts")) > 0, "индекс не сохранён");
+
+        FullTextIndex loaded = FullTextIndex.load(dir.resolve("library_data.fts"));
+        TestSupport.check(loaded != null, "индекс не загружен");
+        Library reopened = new Library(dir, false);
+        TestSupport.checkEquals(1, reopened.searchFullText("конец", 10).size(), "поиск после перезапуска");
+        reopened.close();
+    }
+
+    private static Book book(String title, String description) {
+        return new Book(title, "Автор", "Роман", LocalDate.of(2000, 1, 1), "", 100, 4.0, description);
+    }
+}
@@ -0,0 +1,56 @@
+// GenreDictionaryTest.java - номера жанров, общие названия и списки книг жанра
+
+import java.util.Arrays;
+
+public class GenreDictionaryTest {
+
+    // Жанр без учёта регистра - один номер и одно общее название
+    static void testGenreIgnoresCase() {
+        GenreDictionary genres = new GenreDictionary();
+        String first = genres.add(1, "Фантастика");
+        String second = genres.add(2, new String("ФАНТАСТИКА"));
+
+        TestSupport.check(first == second, "названию жанра не дан общий экземпляр");
+        TestSupport.checkEquals(genres.idOf("фантастика"), genres.idOf("Фантастика"), "номер жанра");
+        TestSupport.checkEquals(2, genres.count("фАнТаСтИкА"), "книг жанра");
+        TestSupport.checkEquals(-1, genres.idOf("Поэзия"), "номер неизвестного жанра");
+        TestSupport.checkEquals(0, genres.booksOf("Поэзия").length, "книги неизвестного жанра");
+    }
+
+    // В списке названий только жанры, в которых есть книги, по алфавиту
+    static void testNamesFollowBooks() {
+        GenreDictionary genres = new GenreDictionary();
+        genres.add(3, "Роман");
+        genres.add(1, "Детектив");
+        genres.add(2, "Роман");
+        TestSupport.checkEquals(Arrays.asList("Детектив", "Роман"), genres.names(), "жанры");
+
+        genres.remove(1, "детектив");
+        genres.remove(3, "Роман");
+        TestSupport.checkEquals(Arrays.asList("Роман"), genres.names(), "жанры после удаления");
+        TestSupport.check(Arrays.equals(new int[] {2}, genres.booksOf("роман")), "книги жанра после удаления");
+
+        // Номер жанра сохраняется, даже когда книг в нём не осталось
+        int id = genres.idOf("Детектив");
+        genres.add(4, "Детектив");
+        TestSupport.checkEquals(id, genres.idOf("Детектив"), "номер вернувшегося жанра");
+    }
+
+    // Поиск библиотеки по жанру и список жанров следуют за изменениями книг
+    static void testLibraryGenres() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        Book novel = TestSupport.book("Первая", "Автор", "Роман");
+        library.addBook(novel);
+        library.addBook(TestSupport.book("Вторая", "Автор", "роман"));
+        library.addBook(TestSupport.book("Третья", "Автор", "Поэзия"));
+        Book copy = TestSupport.book("Четвёртая", "Автор", new String("Поэзия"));
+        library.addBook(copy);
+        TestSupport.checkEquals(2, library.searchByGenre("РОМАН").size(), "книги жанра");
+        TestSupport.check(copy.getGenre() == library.getBook(3).getGenre(), "жанр книги - не общий экземпляр");
+
+        library.updateBook(novel.getId(), TestSupport.book("Первая", "Автор", "Детектив"));
+        TestSupport.checkEquals(Arrays.asList(2), TestSupport.ids(library.searchByGenre("Роман")), "книги после изменения");
+        TestSupport.checkEquals(Arrays.asList("Детектив", "Поэзия", "Роман"), library.getAllGenres(), "список жанров");
+        library.close();
+    }
+}
@@ -0,0 +1,144 @@
+// LibraryBatchTest.java - пакетные изменения: одна запись журнала, одно уведомление, откат
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LibraryBatchTest {
+
+    // addBooks и removeBooks внутри пакета входят в него: одна запись журнала и одно уведомление
+    static void testNestedBatchIsOneRecord() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Library library = new Library(dir, false);
+        Book kept = TestSupport.book("Остаётся", "Автор", "Роман");
+        Book removed = TestSupport.book("Удаляется", "Автор", "Роман");
+        library.addBooks(Arrays.asList(kept, removed));
+        library.sync().join();
+        int recordsBefore = journalRecords(dir);
+        AtomicInteger notifications = new AtomicInteger();
+        library.addChangeListener(notifications::incrementAndGet);
+
+        library.batch(lib -> {
+            lib.addBooks(Arrays.asList(TestSupport.book("Новая 1", "Автор", "Повесть"),
+                    TestSupport.book("Новая 2", "Автор", "Повесть")));
+            lib.removeBooks(Arrays.asList(removed.getId()));
+            lib.updateBook(kept.getId(), TestSupport.book("Остаётся, исправленная", "Автор", "Роман"));
+        });
+
+        TestSupport.checkEquals(1, notifications.get(), "уведомлений на пакет");
+        TestSupport.checkEquals(recordsBefore + 1, journalRecords(dir), "записей журнала на пакет");
+        library.close();
+        Library reopened = new Library(dir, false);
+        TestSupport.checkEquals(3, reopened.getAllBooks().size(), "число книг после перезапуска");
+        TestSupport.check(reopened.getBook(removed.getId()) == null, "удалённая в пакете книга восстановилась");
+        TestSupport.checkEquals("Остаётся, исправленная", reopened.getBook(kept.getId()).getTitle(), "обновление в пакете");
+        TestSupport.checkEquals(2, reopened.searchByGenre("Повесть").size(), "добавленные в пакете книги");
+        reopened.close();
+    }
+
+    // Ошибка внутри пакета (в том числе во вложенном) откатывает все его изменения, включая индексы
+    static void testFailedBatchRollsBack() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Library library = new Library(dir, false);
+        Book first = TestSupport.book("Война и мир", "Толстой", "Роман");
+        Book second = TestSupport.book("Анна Каренина", "Толстой", "Роман");
+        library.addBook(first);
+        library.addBook(second);
+        library.sync().join();
+        int recordsBefore = journalRecords(dir);
+
+        try {
+            library.batch(lib -> {
+                lib.addBooks(Arrays.asList(TestSupport.book("Лишняя", "Другой", "Поэзия")));
+                lib.updateBook(first.getId(), TestSupport.book("Мир и война", "Другой", "Поэзия"));
+                lib.removeBook(second.getId());
+                throw new IllegalStateException("сбой в пакете");
+            });
+            throw new AssertionError("ошибка пакета не проброшена");
+        } catch (IllegalStateException e) {
+            TestSupport.checkEquals("сбой в пакете", e.getMessage(), "проброшенная ошибка");
+        }
+
+        TestSupport.checkEquals(Arrays.asList(first.getId(), second.getId()), TestSupport.ids(library.getAllBooks()),
+                "книги после отката");
+        TestSupport.checkEquals("Война и мир", library.getBook(first.getId()).getTitle(), "название после отката");
+        TestSupport.checkEquals(2, library.searchByAuthor("толст").size(), "индекс авторов после отката");
+        TestSupport.checkEquals(0, library.searchByGenre("Поэзия").size(), "индекс жанров после отката");
+        TestSupport.checkEquals(2, library.getStats().getTotalBooks(), "статистика после отката");
+        TestSupport.checkEquals(recordsBefore, journalRecords(dir), "откаченный пакет попал в журнал");
+
+        // Идентификаторы, выданные в откаченном пакете, используются снова
+        Book next = TestSupport.book("Следующая", "Автор", "Роман");
+        library.addBook(next);
+        TestSupport.checkEquals(second.getId() + 1, next.getId(), "идентификатор после отката");
+        library.close();
+    }
+
+    // Если пакет не удалось записать в журнал, библиотека возвращается к состоянию до пакета
+    static void testUnwrittenBatchRollsBack() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Library original = new Library(dir, false);
+        Book first = TestSupport.book("Война и мир", "Толстой", "Роман");
+        Book second = TestSupport.book("Анна Каренина", "Толстой", "Роман");
+        original.addBooks(Arrays.asList(first, second));
+        original.close();
+
+        Library library = new Library(dir, false);
+        AtomicInteger notifications = new AtomicInteger();
+        library.addChangeListener(notifications::incrementAndGet);
+        // Папка на месте файла журнала: журнал не откроется для записи
+        Path journal = dir.resolve("library_data.journal");
+        Path saved = dir.resolve("journal.saved");
+        Files.move(journal, saved);
+        Files.createDirectory(journal);
+        try {
+            library.batch(lib -> {
+                lib.addBook(TestSupport.book("Лишняя", "Другой", "Поэзия"));
+                lib.updateBook(first.getId(), TestSupport.book("Мир и война", "Другой", "Поэзия"));
+                lib.removeBook(second.getId());
+            });
+            throw new AssertionError("ошибка записи журнала не проброшена");
+        } catch (IOException e) {
+            // Ожидаемо
+        }
+
+        TestSupport.checkEquals(2, notifications.get(), "уведомления о пакете и об откате");
+        TestSupport.checkEquals(Arrays.asList(first.getId(), second.getId()), TestSupport.ids(library.getAllBooks()),
+                "книги после отката");
+        TestSupport.checkEquals("Война и мир", library.getBook(first.getId()).getTitle(), "название после отката");
+        TestSupport.checkEquals(2, library.searchByAuthor("толст").size(), "индекс авторов после отката");
+        TestSupport.checkEquals(0, library.searchByGenre("Поэзия").size(), "индекс жанров после отката");
+        TestSupport.checkEquals(2, library.getStats().getTotalBooks(), "статистика после отката");
+
+        Files.delete(journal);
+        Files.move(saved, journal);
+        Book next = TestSupport.book("Следующая", "Автор", "Роман");
+        library.addBook(next);
+        TestSupport.checkEquals(second.getId() + 1, next.getId(), "идентификатор после отката");
+        library.close();
+
+        Library reopened = new Library(dir, false);
+        TestSupport.checkEquals(Arrays.asList(first.getId(), second.getId(), next.getId()),
+                TestSupport.ids(reopened.getAllBooks()), "книги после перезапуска");
+        TestSupport.checkEquals("Анна Каренина", reopened.getBook(second.getId()).getTitle(), "книга после перезапуска");
+        reopened.close();
+    }
+
+    // Число записей в файле журнала: [длина][CRC32][данные]
+    private static int journalRecords(Path dir) throws IOException {
+        Path journal = dir.resolve("library_data.journal");
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(journal))) {
+            while (in.available() > 0) {
+                int length = in.readInt();
+                in.readInt();
+                in.readFully(new byte[length]);
+                records++;
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,156 @@
+// LibraryConcurrencyTest.java - чтение библиотеки из нескольких потоков во время изменений
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class LibraryConcurrencyTest {
+
+    // Снимок всех книг общий для читателей, не меняется и заменяется новым после изменения
+    static void testSnapshotIsImmutable() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        library.addBook(TestSupport.book("Первая", "Автор", "Роман"));
+        List<Book> snapshot = library.getAllBooks();
+        TestSupport.check(snapshot == library.getAllBooks(), "снимок создаётся заново без изменений");
+        try {
+            snapshot.add(TestSupport.book("Чужая", "Автор", "Роман"));
+            throw new AssertionError("снимок можно изменить");
+        } catch (UnsupportedOperationException e) {
+            // Ожидаемо
+        }
+
+        library.addBook(TestSupport.book("Вторая", "Автор", "Роман"));
+        TestSupport.checkEquals(1, snapshot.size(), "старый снимок изменился");
+        TestSupport.checkEquals(2, library.getAllBooks().size(), "новый снимок");
+        library.close();
+    }
+
+    // Пока индексы поиска строятся, изменения библиотеки не ждут; изменённые книги попадают в индексы
+    static void testIndexBuildDoesNotBlockWriters() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            books.add(TestSupport.book("Книга " + i, "Автор " + i, "Роман"));
+        }
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        books.add(new SlowBook("Медленная книга", started, release));
+        library.addBooks(books);
+
+        Thread builder = new Thread(library::prepareSearch, SlowBook.BUILDER);
+        builder.start();
+        TestSupport.check(started.await(10, TimeUnit.SECONDS), "построение индексов не началось");
+        try {
+            CompletableFuture.runAsync(() -> {
+                library.addBook(TestSupport.book("Добавлена при построении", "Новый", "Роман"));
+                library.updateBook(books.get(1).getId(), TestSupport.book("Изменена при построении", "Новый", "Роман"));
+                library.removeBook(books.get(2).getId());
+            }).get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+        }
+        builder.join();
+
+        TestSupport.checkEquals(scanTitles(library, "при построении"),
+                TestSupport.ids(library.searchByTitle("при построении")), "индекс названий");
+        TestSupport.checkEquals(scanTitles(library, "книга 2"), TestSupport.ids(library.searchByTitle("книга 2")),
+                "удалённая книга в индексе");
+        TestSupport.checkEquals(2, library.searchByAuthor("новый").size(), "индекс авторов");
+        TestSupport.checkEquals(2, library.searchFullText("построении", 10).size(), "полнотекстовый индекс");
+        TestSupport.check(!TestSupport.ids(library.searchFullText("книга 1", 100)).contains(books.get(1).getId()),
+                "старое название в полнотекстовом индексе");
+        library.close();
+    }
+
+    // Книги, в названии которых есть строка (без учёта регистра), по перебору
+    private static List<Integer> scanTitles(Library library, String part) {
+        List<Integer> ids = new ArrayList<>();
+        for (Book book : library.getAllBooks()) {
+            if (book.getTitle().toLowerCase(Locale.ROOT).contains(part)) {
+                ids.add(book.getId());
+            }
+        }
+        return ids;
+    }
+
+    // Книга, название которой поток построения индексов читает только после разрешения теста
+    private static class SlowBook extends Book {
+        static final String BUILDER = "index-builder";
+        private final transient CountDownLatch started;
+        private final transient CountDownLatch release;
+
+        SlowBook(String title, CountDownLatch started, CountDownLatch release) {
+            super(title, "Автор", "Роман", null, "", 100, 4.0, "");
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public String getTitle() {
+            if (Thread.currentThread().getName().equals(BUILDER)) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.getTitle();
+        }
+    }
+
+    // Читатели работают одновременно с записью без исключений и видят согласованные данные
+    static void testReadersDuringWrites() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        AtomicBoolean done = new AtomicBoolean();
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        List<Book> all = library.getAllBooks();
+                        for (Book book : all) {
+                            TestSupport.check(book != null && book.getTitle() != null, "неполная книга в снимке");
+                        }
+                        library.query(new BookQuery().genre("Роман").minPages(50));
+                        library.searchByTitle("книга 1");
+                        library.getAllBooks(BookOrder.PAGES);
+                        library.getStats();
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            Book book = new Book("Книга " + i, "Автор " + i % 10, i % 2 == 0 ? "Роман" : "Поэзия", null, "",
+                    i % 200, 4.0, "");
+            library.addBook(book);
+            ids.add(book.getId());
+            if (i % 3 == 0) {
+                library.removeBook(ids.get(i / 2));
+            }
+        }
+        done.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        TestSupport.check(errors.isEmpty(), "ошибки читателей: " + errors);
+        int total = library.getAllBooks().size();
+        TestSupport.checkEquals(total, library.getStats().getTotalBooks(), "статистика");
+        TestSupport.checkEquals(total, library.getAllBooks(BookOrder.PAGES).size(), "порядок по страницам");
+        TestSupport.checkEquals(total, library.query(new BookQuery().minPages(0)).size(), "запрос по страницам");
+        library.close();
+    }
+}
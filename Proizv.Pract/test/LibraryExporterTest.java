@@ -0,0 +1,58 @@
+// LibraryExporterTest.java - экспорт в файл: полный файл или никакого
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+public class LibraryExporterTest {
+
+    static void testCompleteExportKeepsFile() throws Exception {
+        Path file = TestSupport.tempDir().resolve("books.csv");
+        List<Book> books = Arrays.asList(TestSupport.book("Первая", "Автор", "Роман"),
+                TestSupport.book("Вторая", "Автор", "Роман"));
+        int written = LibraryExporter.export(books, file, LibraryExporter.Format.CSV, n -> { }, () -> false);
+        TestSupport.checkEquals(2, written, "записано книг");
+        TestSupport.checkEquals(3, Files.readAllLines(file).size(), "строк в файле");
+    }
+
+    // Отменённый экспорт не оставляет недописанный файл
+    static void testCancelledExportRemovesFile() throws Exception {
+        Path file = TestSupport.tempDir().resolve("books.jsonl");
+        List<Book> books = Arrays.asList(TestSupport.book("Первая", "Автор", "Роман"),
+                TestSupport.book("Вторая", "Автор", "Роман"));
+        LibraryExporter.export(books, file, LibraryExporter.Format.JSONL, n -> { }, () -> true);
+        TestSupport.check(!Files.exists(file), "остался файл отменённого экспорта");
+    }
+
+    // Ошибка посреди экспорта пробрасывается, а недописанный файл удаляется
+    static void testFailedExportRemovesFile() throws Exception {
+        Path file = TestSupport.tempDir().resolve("books.csv");
+        Book first = TestSupport.book("Первая", "Автор", "Роман");
+        Iterable<Book> failing = () -> new Iterator<Book>() {
+            private boolean returned;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Book next() {
+                if (returned) {
+                    throw new IllegalStateException("сбой чтения");
+                }
+                returned = true;
+                return first;
+            }
+        };
+        try {
+            LibraryExporter.export(failing, file, LibraryExporter.Format.CSV, n -> { }, () -> false);
+            TestSupport.check(false, "ошибка экспорта не проброшена");
+        } catch (IllegalStateException expected) {
+            // ожидаемо
+        }
+        TestSupport.check(!Files.exists(file), "остался файл неудавшегося экспорта");
+    }
+}
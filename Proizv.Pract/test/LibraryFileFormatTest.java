@@ -0,0 +1,99 @@
+// LibraryFileFormatTest.java - двоичный колоночный формат снимка и чтение старого формата
+
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class LibraryFileFormatTest {
+
+    // Запись и чтение сохраняют все поля, в том числе пустые, при обычной и отложенной загрузке описаний
+    static void testRoundTrip() throws Exception {
+        Path file = TestSupport.tempDir().resolve("library_data.dat");
+        Book full = new Book("Война и мир", "Толстой", "Роман", LocalDate.of(1869, 1, 1),
+                "/книги/война.fb2", 1225, 4.8, "Описание с переводом\nстроки и «кавычками»");
+        full.setId(7);
+        full.setContentHash("abc123");
+        Book empty = new Book("", null, "Поэзия", null, "", 0, 0.0, null);
+        empty.setId(9);
+        LibraryFileFormat.write(file, Arrays.asList(full, empty), 42);
+
+        for (boolean lazy : new boolean[] {false, true}) {
+            LibraryFileFormat.Snapshot snapshot = LibraryFileFormat.read(file, lazy);
+            TestSupport.checkEquals(42L, snapshot.seq, "номер записи журнала");
+            TestSupport.check(!snapshot.outdated, "файл текущей версии помечен устаревшим");
+            TestSupport.checkEquals(2, snapshot.books.size(), "число книг");
+            checkSame(full, snapshot.books.get(0));
+            checkSame(empty, snapshot.books.get(1));
+        }
+    }
+
+    // Файл старой сериализации Java читается и переписывается в новом формате
+    static void testLegacyFileIsConverted() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Path file = dir.resolve("library_data.dat");
+        List<Book> legacy = new ArrayList<>();
+        legacy.add(new Book("Первая", "Автор", "Роман", LocalDate.of(2001, 2, 3), "/a.fb2", 10, 3.5, "Один"));
+        legacy.add(new Book("Вторая", "Автор", "Роман", null, "/b.fb2", 20, 4.5, "Два"));
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(file))) {
+            out.writeObject(legacy);
+        }
+        TestSupport.check(LibraryFileFormat.isLegacyFormat(file), "старый формат не распознан");
+
+        Library library = new Library(dir, false);
+        TestSupport.checkEquals(Arrays.asList(1, 2), TestSupport.ids(library.getAllBooks()), "идентификаторы по порядку");
+        checkSame(legacy.get(1), library.getBook(2));
+        library.close();
+        TestSupport.check(!LibraryFileFormat.isLegacyFormat(file), "файл не переведён в новый формат");
+
+        Library reopened = new Library(dir, false);
+        checkSame(legacy.get(0), reopened.getBook(1));
+        reopened.close();
+    }
+
+    // Ошибка записи при переводе старого файла не теряет прочитанные книги; перевод повторяется при следующем открытии
+    static void testFailedConversionKeepsBooks() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Path file = dir.resolve("library_data.dat");
+        List<Book> legacy = new ArrayList<>();
+        legacy.add(new Book("Первая", "Автор", "Роман", LocalDate.of(2001, 2, 3), "/a.fb2", 10, 3.5, "Один"));
+        legacy.add(new Book("Вторая", "Автор", "Роман", null, "/b.fb2", 20, 4.5, "Два"));
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(file))) {
+            out.writeObject(legacy);
+        }
+        // Папка на месте временного файла не даёт записать новый снимок
+        Path blocker = Files.createDirectory(dir.resolve("library_data.dat.tmp"));
+
+        Library library = new Library(dir, false);
+        TestSupport.checkEquals(Arrays.asList(1, 2), TestSupport.ids(library.getAllBooks()), "книги старого файла");
+        library.addBook(TestSupport.book("Третья", "Автор", "Роман"));
+        TestSupport.checkEquals(3, library.getBook(3).getId(), "идентификатор новой книги");
+        library.close();
+        TestSupport.check(LibraryFileFormat.isLegacyFormat(file), "старый файл испорчен");
+
+        Files.delete(blocker);
+        Library reopened = new Library(dir, false);
+        TestSupport.checkEquals(Arrays.asList(1, 2, 3), TestSupport.ids(reopened.getAllBooks()), "книги после открытия");
+        checkSame(legacy.get(1), reopened.getBook(2));
+        reopened.close();
+        TestSupport.check(!LibraryFileFormat.isLegacyFormat(file), "файл не переведён в новый формат");
+    }
+
+    private static void checkSame(Book expected, Book actual) {
+        TestSupport.checkEquals(expected.getTitle(), actual.getTitle(), "название");
+        TestSupport.checkEquals(expected.getAuthor(), actual.getAuthor(), "автор");
+        TestSupport.checkEquals(expected.getGenre(), actual.getGenre(), "жанр");
+        TestSupport.checkEquals(expected.getPublicationDate(), actual.getPublicationDate(), "дата");
+        TestSupport.checkEquals(expected.getFilePath(), actual.getFilePath(), "путь к файлу");
+        TestSupport.checkEquals(expected.getPages(), actual.getPages(), "страницы");
+        TestSupport.checkEquals(expected.getRating(), actual.getRating(), "рейтинг");
+        TestSupport.checkEquals(expected.getDescription(), actual.getDescription(), "описание");
+        TestSupport.checkEquals(expected.getContentHash(), actual.getContentHash(), "хэш");
+        if (expected.getId() != 0) {
+            TestSupport.checkEquals(expected.getId(), actual.getId(), "идентификатор");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+// LibraryJournalTest.java - восстановление библиотеки по журналу
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class LibraryJournalTest {
+    private static final String JOURNAL = "library_data.journal";
+
+    // Библиотека не закрыта (сбой после записи журнала) - изменения восстанавливаются из журнала
+    static void testReplayAfterCrash() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Library library = new Library(dir, false);
+        Book first = TestSupport.book("Первая", "Автор", "Роман");
+        Book second = TestSupport.book("Вторая", "Автор", "Роман");
+        Book third = TestSupport.book("Третья", "Автор", "Роман");
+        library.addBook(first);
+        library.addBook(second);
+        library.addBook(third);
+        library.updateBook(second.getId(), TestSupport.book("Вторая, исправленная", "Другой автор", "Повесть"));
+        library.removeBook(third.getId());
+        library.sync().join();
+
+        // Файлы на момент сбоя: библиотека не закрыта и держит свою папку, поэтому открывается копия
+        Library reopened = new Library(TestSupport.copyDir(dir), false);
+        TestSupport.checkEquals(2, reopened.getAllBooks().size(), "число книг");
+        TestSupport.checkEquals("Первая", reopened.getBook(first.getId()).getTitle(), "первая книга");
+        Book updated = reopened.getBook(second.getId());
+        TestSupport.checkEquals("Вторая, исправленная", updated.getTitle(), "обновлённое название");
+        TestSupport.checkEquals("Повесть", updated.getGenre(), "обновлённый жанр");
+        TestSupport.check(reopened.getBook(third.getId()) == null, "удалённая книга восстановилась");
+
+        // Новые книги не получают идентификаторы, уже использованные до сбоя
+        Book fourth = TestSupport.book("Четвёртая", "Автор", "Роман");
+        reopened.addBook(fourth);
+        TestSupport.check(fourth.getId() > third.getId(), "идентификатор использован повторно");
+        reopened.close();
+    }
+
+    // Открытую папку библиотеки нельзя открыть второй раз, пока первая библиотека не закрыта
+    static void testSecondOpenIsRejected() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Library library = new Library(dir, false);
+        library.addBook(TestSupport.book("Первая", "Автор", "Роман"));
+        try {
+            new Library(dir, false);
+            throw new AssertionError("папка открыта дважды");
+        } catch (UncheckedIOException e) {
+            TestSupport.check(e.getMessage().contains("уже открыта"), "сообщение: " + e.getMessage());
+        }
+        library.close();
+
+        Library reopened = new Library(dir, false);
+        TestSupport.checkEquals(1, reopened.getAllBooks().size(), "книги после повторного открытия");
+        reopened.close();
+    }
+
+    // Оборванная последняя запись отбрасывается, и журнал продолжает работать после неё
+    static void testTornTailIsTruncated() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Library library = new Library(dir, false);
+        library.addBook(TestSupport.book("Первая", "Автор", "Роман"));
+        library.addBook(TestSupport.book("Вторая", "Автор", "Роман"));
+        library.close();
+        Path journal = dir.resolve(JOURNAL);
+        long validSize = Files.size(journal);
+
+        // Заголовок записи обещает 100 байт, но успело записаться только 10
+        try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer torn = ByteBuffer.allocate(18);
+            torn.putInt(100).putInt(12345);
+            channel.write(torn.rewind());
+        }
+
+        Library reopened = new Library(dir, false);
+        TestSupport.checkEquals(2, reopened.getAllBooks().size(), "число книг после обрыва");
+        TestSupport.checkEquals(validSize, Files.size(journal), "размер журнала после обрезки");
+        reopened.addBook(TestSupport.book("Третья", "Автор", "Роман"));
+        reopened.close();
+
+        Library again = new Library(dir, false);
+        TestSupport.checkEquals(3, again.getAllBooks().size(), "запись после обрезанного хвоста потеряна");
+        again.close();
+    }
+
+    // Запись с неверной контрольной суммой и всё после неё не применяются
+    static void testCorruptedRecordIsDiscarded() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Library library = new Library(dir, false);
+        library.addBook(TestSupport.book("Первая", "Автор", "Роман"));
+        library.close();
+        Path journal = dir.resolve(JOURNAL);
+        long firstRecordEnd = Files.size(journal);
+
+        library = new Library(dir, false);
+        library.addBook(TestSupport.book("Вторая", "Автор", "Роман"));
+        library.close();
+
+        // Порча последнего байта второй записи
+        byte[] bytes = Files.readAllBytes(journal);
+        bytes[bytes.length - 1] ^= 0x55;
+        Files.write(journal, bytes);
+
+        Library reopened = new Library(dir, false);
+        TestSupport.checkEquals(1, reopened.getAllBooks().size(), "число книг");
+        TestSupport.checkEquals("Первая", reopened.getAllBooks().get(0).getTitle(), "уцелевшая книга");
+        TestSupport.checkEquals(firstRecordEnd, Files.size(journal), "размер журнала после обрезки");
+        reopened.close();
+    }
+}
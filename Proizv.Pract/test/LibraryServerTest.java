@@ -0,0 +1,134 @@
+// LibraryServerTest.java - обработчики HTTP API на случайном свободном порту
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class LibraryServerTest {
+    private static final Pattern ID = Pattern.compile("\"id\":(\\d+)");
+    private static final Pattern NEXT = Pattern.compile("\"next\":(\\d+|null)");
+
+    // Добавление, чтение, изменение и удаление книги
+    static void testBookLifecycle() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        LibraryServer server = start(library);
+        try {
+            Response created = request(server, "POST", "/books", book("Книга", 4.5, 100));
+            TestSupport.checkEquals(201, created.status, "код добавления");
+            int id = ids(created.body).get(0);
+            TestSupport.checkEquals(200, request(server, "GET", "/books/" + id, null).status, "код чтения");
+
+            Response updated = request(server, "PUT", "/books/" + id, book("Новое название", 3.0, 50));
+            TestSupport.checkEquals(200, updated.status, "код изменения");
+            TestSupport.checkEquals("Новое название", library.getBook(id).getTitle(), "название после PUT");
+
+            TestSupport.checkEquals(204, request(server, "DELETE", "/books/" + id, null).status, "код удаления");
+            TestSupport.checkEquals(404, request(server, "GET", "/books/" + id, null).status, "код после удаления");
+        } finally {
+            server.stop(0);
+            library.close();
+        }
+    }
+
+    // Рейтинг вне 0-5 и отрицательное число страниц отклоняются с кодом 400
+    static void testInvalidBookIsRejected() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        LibraryServer server = start(library);
+        try {
+            TestSupport.checkEquals(400, request(server, "POST", "/books", book("Книга", 7.0, 100)).status, "рейтинг 7");
+            TestSupport.checkEquals(400, request(server, "POST", "/books", book("Книга", -1.0, 100)).status, "рейтинг -1");
+            TestSupport.checkEquals(400, request(server, "POST", "/books", book("Книга", 4.0, -5)).status, "страниц -5");
+            TestSupport.checkEquals(400, request(server, "POST", "/books", "{\"title\":").status, "обрезанный JSON");
+            TestSupport.checkEquals(0, library.getAllBooks().size(), "книги после ошибок");
+        } finally {
+            server.stop(0);
+            library.close();
+        }
+    }
+
+    // Страницы по ключу after вместе дают тот же список, что и запрос целиком
+    static void testKeysetPagesMatchQuery() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        for (int i = 0; i < 40; i++) {
+            library.addBook(TestSupport.book("Книга " + i, "Автор " + i % 3, i % 4 == 0 ? "Поэзия" : "Роман"));
+        }
+        library.removeBook(5);
+        LibraryServer server = start(library);
+        try {
+            TestSupport.checkEquals(TestSupport.ids(library.query(new BookQuery().genre("Роман").author("Автор 1"))),
+                    allPages(server, "/books?genre=%D0%A0%D0%BE%D0%BC%D0%B0%D0%BD&author=1&limit=4"), "страницы запроса");
+            TestSupport.checkEquals(TestSupport.ids(library.getAllBooks()), allPages(server, "/books?limit=7"),
+                    "страницы всей библиотеки");
+        } finally {
+            server.stop(0);
+            library.close();
+        }
+    }
+
+    private static List<Integer> allPages(LibraryServer server, String path) throws IOException {
+        List<Integer> result = new ArrayList<>();
+        String next = "0";
+        while (!next.equals("null")) {
+            Response page = request(server, "GET", path + "&after=" + next, null);
+            TestSupport.checkEquals(200, page.status, "код страницы");
+            result.addAll(ids(page.body));
+            Matcher matcher = NEXT.matcher(page.body);
+            TestSupport.check(matcher.find(), "нет поля next");
+            next = matcher.group(1);
+        }
+        return result;
+    }
+
+    private static LibraryServer start(Library library) throws IOException {
+        LibraryServer server = new LibraryServer(library, 0);
+        server.start();
+        return server;
+    }
+
+    private static String book(String title, double rating, int pages) {
+        return "{\"title\":\"" + title + "\",\"author\":\"Автор\",\"genre\":\"Роман\",\"publicationDate\":\"2001-02-03\","
+                + "\"pages\":" + pages + ",\"rating\":" + rating + ",\"description\":\"\"}";
+    }
+
+    private static List<Integer> ids(String body) {
+        List<Integer> ids = new ArrayList<>();
+        Matcher matcher = ID.matcher(body);
+        while (matcher.find()) {
+            ids.add(Integer.parseInt(matcher.group(1)));
+        }
+        return ids;
+    }
+
+    private static class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private static Response request(LibraryServer server, String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        String text = in != null ? new String(in.readAllBytes(), StandardCharsets.UTF_8) : "";
+        connection.disconnect();
+        return new Response(status, text);
+    }
+}
@@ -0,0 +1,113 @@
+// MetadataRefreshTest.java - повторный импорт папки: изменённые файлы перечитываются
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+public class MetadataRefreshTest {
+
+    // Изменённый файл заменяет прежнюю версию книги, не меняя её идентификатор
+    static void testChangedFileUpdatesBook() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Path books = Files.createDirectory(dir.resolve("books"));
+        Path file = books.resolve("book.fb2");
+        write(file, "Первое название", 1_000_000);
+        Library library = new Library(dir, false);
+        MetadataCache cache = new MetadataCache(dir);
+        importFolder(library, books, cache);
+        Book first = library.getAllBooks().get(0);
+
+        write(file, "Второе, более длинное название", 2_000_000);
+        Map<Library.ImportResult, Integer> counts = importFolder(library, books, cache);
+
+        TestSupport.checkEquals(1, counts.get(Library.ImportResult.UPDATED), "обновлено книг");
+        TestSupport.checkEquals(1, library.getAllBooks().size(), "число книг");
+        Book updated = library.getBook(first.getId());
+        TestSupport.checkEquals("Второе, более длинное название", updated.getTitle(), "название после обновления");
+        TestSupport.check(!updated.getContentHash().equals(first.getContentHash()), "хэш не обновился");
+        TestSupport.check(cache.isCurrent(file), "кэш не обновился");
+
+        // Кэш сохраняется в папку библиотеки, а не в текущую папку процесса
+        cache.save();
+        TestSupport.check(Files.exists(dir.resolve("library_metadata.cache")), "кэш не в папке библиотеки");
+        TestSupport.check(MetadataCache.load(library.getDirectory()).isCurrent(file), "сохранённый кэш");
+        library.close();
+    }
+
+    // Неизменённый файл не читается: правки пользователя остаются
+    static void testUnchangedFileKeepsEdits() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Path books = Files.createDirectory(dir.resolve("books"));
+        write(books.resolve("book.fb2"), "Название из файла", 1_000_000);
+        Library library = new Library(dir, false);
+        MetadataCache cache = new MetadataCache(dir);
+        importFolder(library, books, cache);
+        Book imported = library.getAllBooks().get(0);
+        library.updateBook(imported.getId(), new Book("Правка пользователя", imported.getAuthor(), imported.getGenre(),
+                null, imported.getFilePath(), 10, 5.0, ""));
+
+        Map<Library.ImportResult, Integer> counts = importFolder(library, books, cache);
+        TestSupport.check(counts.isEmpty(), "неизменённый файл прочитан заново: " + counts);
+
+        // Без записи в кэше файл читается, но совпадающий хэш не даёт затереть правку
+        counts = importFolder(library, books, new MetadataCache(dir));
+        TestSupport.checkEquals(1, counts.get(Library.ImportResult.UNCHANGED), "неизменённых книг");
+        TestSupport.checkEquals("Правка пользователя", library.getBook(imported.getId()).getTitle(), "название");
+        library.close();
+    }
+
+    // Книга, введённая вручную для файла, получает его хэш, но не поля из файла
+    static void testManualBookKeepsFields() throws Exception {
+        Path dir = TestSupport.tempDir();
+        Path books = Files.createDirectory(dir.resolve("books"));
+        Path file = books.resolve("book.fb2");
+        write(file, "Название из файла", 1_000_000);
+        Library library = new Library(dir, false);
+        Book manual = new Book("Введено вручную", "Сидоров", "Роман", null,
+                file.toAbsolutePath().toString(), 123, 4.5, "Описание пользователя");
+        library.addBook(manual);
+
+        MetadataCache cache = new MetadataCache(dir);
+        Map<Library.ImportResult, Integer> counts = importFolder(library, books, cache);
+        TestSupport.checkEquals(1, counts.get(Library.ImportResult.UNCHANGED), "неизменённых книг");
+        Book refreshed = library.getBook(manual.getId());
+        TestSupport.checkEquals("Введено вручную", refreshed.getTitle(), "название");
+        TestSupport.checkEquals("Сидоров", refreshed.getAuthor(), "автор");
+        TestSupport.checkEquals(4.5, refreshed.getRating(), "рейтинг");
+        TestSupport.checkEquals("Описание пользователя", refreshed.getDescription(), "описание");
+        TestSupport.check(refreshed.getContentHash() != null, "хэш файла не сохранён");
+
+        // Теперь книга сравнивается с файлом по хэшу: изменённый файл её обновляет
+        write(file, "Новое название из файла", 2_000_000);
+        counts = importFolder(library, books, cache);
+        TestSupport.checkEquals(1, counts.get(Library.ImportResult.UPDATED), "обновлено книг");
+        TestSupport.checkEquals("Новое название из файла", library.getBook(manual.getId()).getTitle(), "название");
+        library.close();
+    }
+
+    private static void write(Path file, String title, long modified) throws Exception {
+        String fb2 = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><FictionBook><description><title-info>"
+                + "<genre>sf</genre><author><first-name>Иван</first-name><last-name>Петров</last-name></author>"
+                + "<book-title>" + title + "</book-title></title-info></description></FictionBook>";
+        Files.write(file, fb2.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
+    }
+
+    // Импорт так же, как в MainFrame: пачка проходит через Library.importBook
+    private static Map<Library.ImportResult, Integer> importFolder(Library library, Path folder, MetadataCache cache)
+            throws Exception {
+        Map<Library.ImportResult, Integer> counts = new EnumMap<>(Library.ImportResult.class);
+        BulkImporter.importFiles(BulkImporter.scan(folder), cache,
+                file -> library.containsFile(file.toAbsolutePath().toString()),
+                batch -> {
+                    for (Book book : batch) {
+                        counts.merge(library.importBook(book), 1, Integer::sum);
+                    }
+                },
+                done -> { }, () -> false);
+        return counts;
+    }
+}
@@ -0,0 +1,107 @@
+// QueryPlannerTest.java - запросы с несколькими условиями через индексы против перебора всех книг
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class QueryPlannerTest {
+    private static final String[] WORDS = { "Война", "мир", "Анна", "Дон", "сад", "war", "Peace" };
+    private static final String[] AUTHORS = { "Толстой", "Чехов", "Шолохов", "Tolstoy", "Пушкин" };
+    private static final String[] GENRES = { "Роман", "Пьеса", "Поэзия", "Повесть" };
+    private static final LocalDate START = LocalDate.of(1800, 1, 1);
+
+    // Любое сочетание условий даёт те же книги в том же порядке, что и проверка каждой книги
+    static void testQueryMatchesLinearScan() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        Random random = new Random(11);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            books.add(randomBook(random));
+        }
+        library.addBooks(books);
+        checkQueries(library, random);
+
+        for (int i = 0; i < books.size(); i += 9) {
+            library.updateBook(books.get(i).getId(), randomBook(random));
+        }
+        for (int i = 1; i < books.size(); i += 4) {
+            library.removeBook(books.get(i).getId());
+        }
+        checkQueries(library, random);
+        library.close();
+    }
+
+    private static void checkQueries(Library library, Random random) {
+        for (int i = 0; i < 300; i++) {
+            BookQuery query = randomQuery(random);
+            List<Integer> expected = scan(library, query);
+            TestSupport.checkEquals(expected, TestSupport.ids(library.query(query)), "запрос " + i);
+
+            // Страницы по ключу подряд складываются в тот же результат
+            int limit = 1 + random.nextInt(50);
+            List<Integer> paged = new ArrayList<>();
+            List<Book> page = library.query(query, -1, limit);
+            while (!page.isEmpty()) {
+                TestSupport.check(page.size() <= limit, "страница больше лимита");
+                paged.addAll(TestSupport.ids(page));
+                page = library.query(query, page.get(page.size() - 1).getId(), limit);
+            }
+            TestSupport.checkEquals(expected, paged, "страницы запроса " + i);
+        }
+    }
+
+    private static List<Integer> scan(Library library, BookQuery query) {
+        List<Integer> ids = new ArrayList<>();
+        for (Book book : library.getAllBooks()) {
+            if ((!query.hasTitle() || query.matchesTitle(book))
+                    && (!query.hasAuthor() || query.matchesAuthor(book))
+                    && (!query.hasGenre() || query.matchesGenre(book))
+                    && (!query.hasDateRange() || query.matchesDate(book))
+                    && (!query.hasRatingRange() || query.matchesRating(book))
+                    && (!query.hasPagesRange() || query.matchesPages(book))) {
+                ids.add(book.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static Book randomBook(Random random) {
+        String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+        LocalDate date = random.nextInt(10) == 0 ? null : START.plusDays(random.nextInt(80000));
+        return new Book(title, AUTHORS[random.nextInt(AUTHORS.length)], GENRES[random.nextInt(GENRES.length)],
+                date, "", random.nextInt(1000), random.nextInt(11) / 2.0, "");
+    }
+
+    private static BookQuery randomQuery(Random random) {
+        BookQuery query = new BookQuery();
+        if (random.nextInt(4) == 0) {
+            query.title(WORDS[random.nextInt(WORDS.length)].substring(1).toLowerCase(Locale.ROOT));
+        }
+        if (random.nextInt(4) == 0) {
+            query.author(AUTHORS[random.nextInt(AUTHORS.length)].substring(0, 3));
+        }
+        if (random.nextInt(3) == 0) {
+            query.genre(GENRES[random.nextInt(GENRES.length)].toUpperCase(Locale.ROOT));
+        }
+        if (random.nextInt(3) == 0) {
+            LocalDate from = random.nextBoolean() ? START.plusDays(random.nextInt(80000)) : null;
+            LocalDate to = random.nextBoolean() ? START.plusDays(random.nextInt(80000)) : null;
+            query.publishedBetween(from, to);
+        }
+        if (random.nextInt(3) == 0) {
+            query.minRating(random.nextInt(11) / 2.0);
+        }
+        if (random.nextInt(4) == 0) {
+            query.maxRating(random.nextInt(11) / 2.0);
+        }
+        if (random.nextInt(3) == 0) {
+            query.minPages(random.nextInt(1000));
+        }
+        if (random.nextInt(4) == 0) {
+            query.maxPages(random.nextInt(1000));
+        }
+        return query;
+    }
+}
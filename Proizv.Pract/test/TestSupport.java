@@ -0,0 +1,71 @@
+// TestSupport.java - проверки и вспомогательные методы для тестов
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Внешних библиотек в проекте нет, поэтому тесты - обычные классы со
+ * статическими методами test*, а AllTests запускает их по очереди.
+ */
+public final class TestSupport {
+    private TestSupport() {
+    }
+
+    public static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    public static void checkEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            throw new AssertionError(message + ": ожидалось <" + expected + ">, получено <" + actual + ">");
+        }
+    }
+
+    // Временная папка для файлов библиотеки; удаляется при завершении JVM
+    public static Path tempDir() throws IOException {
+        Path dir = Files.createTempDirectory("library-test");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> delete(dir)));
+        return dir;
+    }
+
+    // Копия файлов папки во временной папке
+    public static Path copyDir(Path dir) throws IOException {
+        Path copy = tempDir();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, copy.resolve(file.getFileName()));
+            }
+        }
+        return copy;
+    }
+
+    private static void delete(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // Временные файлы останутся в системной папке
+        }
+    }
+
+    public static Book book(String title, String author, String genre) {
+        return new Book(title, author, genre, LocalDate.of(2000, 1, 1), "", 100, 4.0, "Описание " + title);
+    }
+
+    // Идентификаторы книг списка в его порядке
+    public static List<Integer> ids(List<Book> books) {
+        List<Integer> ids = new ArrayList<>(books.size());
+        for (Book book : books) {
+            ids.add(book.getId());
+        }
+        return ids;
+    }
+}
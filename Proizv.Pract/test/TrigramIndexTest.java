@@ -0,0 +1,64 @@
+// TrigramIndexTest.java - поиск по подстроке через триграммы против перебора всех книг
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.Function;
+
+public class TrigramIndexTest {
+    private static final String[] WORDS = {
+            "Война", "мир", "МИРА", "Анна", "Каренина", "war", "Peace", "о", "ар", "ина", "Тихий", "Дон", "дОм"
+    };
+    private static final String[] QUERIES = {
+            "мир", "МИР", "ми", "и", "ар", "ина", "а к", "war", "PEACE", "ea", "тихий дон", "дом", "нет такого", ""
+    };
+
+    // Результаты по названию и автору совпадают с проверкой каждой книги, в том числе после изменений
+    static void testIndexMatchesLinearScan() throws Exception {
+        Library library = new Library(TestSupport.tempDir(), false);
+        Random random = new Random(7);
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            books.add(TestSupport.book(phrase(random), phrase(random), "Роман"));
+        }
+        library.addBooks(books);
+        checkQueries(library);
+
+        for (int i = 0; i < 400; i += 5) {
+            library.updateBook(books.get(i).getId(), TestSupport.book(phrase(random), phrase(random), "Роман"));
+        }
+        for (int i = 1; i < 400; i += 7) {
+            library.removeBook(books.get(i).getId());
+        }
+        checkQueries(library);
+        library.close();
+    }
+
+    private static void checkQueries(Library library) {
+        for (String query : QUERIES) {
+            TestSupport.checkEquals(scan(library, Book::getTitle, query), TestSupport.ids(library.searchByTitle(query)),
+                    "поиск по названию \"" + query + "\"");
+            TestSupport.checkEquals(scan(library, Book::getAuthor, query), TestSupport.ids(library.searchByAuthor(query)),
+                    "поиск по автору \"" + query + "\"");
+        }
+    }
+
+    private static List<Integer> scan(Library library, Function<Book, String> field, String query) {
+        List<Integer> ids = new ArrayList<>();
+        for (Book book : library.getAllBooks()) {
+            if (field.apply(book).toLowerCase(Locale.ROOT).contains(query.toLowerCase(Locale.ROOT))) {
+                ids.add(book.getId());
+            }
+        }
+        return ids;
+    }
+
+    private static String phrase(Random random) {
+        StringBuilder result = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        for (int i = random.nextInt(3); i > 0; i--) {
+            result.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return result.toString();
+    }
+}